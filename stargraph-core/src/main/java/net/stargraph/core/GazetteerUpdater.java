@@ -0,0 +1,127 @@
+package net.stargraph.core;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.core.query.Gazetteer;
+import net.stargraph.model.InstanceEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * The gazetteer of a KB, built in the background and swapped in when ready. Meanwhile queries use the previous one,
+ * empty at first, thus fall back to the entity search.
+ * <p>
+ * Reloads and additions requested while an update runs are coalesced into the next one.
+ */
+final class GazetteerUpdater {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Marker marker = MarkerFactory.getMarker("core");
+    private final String dbId;
+    private final Supplier<Gazetteer> loader;
+    private final int maxLabels;
+    private final Executor executor;
+    private final Queue<InstanceEntity> added;
+    private final AtomicBoolean reload;
+    private final AtomicBoolean scheduled;
+    private volatile Gazetteer current;
+
+    GazetteerUpdater(String dbId, Supplier<Gazetteer> loader, int maxLabels, Executor executor) {
+        this.dbId = Objects.requireNonNull(dbId);
+        this.loader = Objects.requireNonNull(loader);
+        this.maxLabels = maxLabels;
+        this.executor = Objects.requireNonNull(executor);
+        this.added = new ConcurrentLinkedQueue<>();
+        this.reload = new AtomicBoolean();
+        this.scheduled = new AtomicBoolean();
+        this.current = new Gazetteer(Collections.emptyIterator(), 0);
+    }
+
+    Gazetteer get() {
+        return current;
+    }
+
+    /**
+     * Reads all labels again from the KB.
+     */
+    void reload() {
+        if (maxLabels > 0) {
+            reload.set(true);
+            schedule();
+        }
+    }
+
+    /**
+     * Adds the labels of a new entity, without reading the KB again.
+     */
+    void add(InstanceEntity entity) {
+        if (maxLabels > 0) {
+            added.add(entity);
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::update);
+        }
+    }
+
+    private void update() {
+        // Whatever comes from now on schedules another update.
+        scheduled.set(false);
+        try {
+            if (reload.getAndSet(false)) {
+                logger.info(marker, "Loading entity labels of '{}'", dbId);
+                current = loader.get();
+            }
+
+            List<InstanceEntity> entities = new ArrayList<>();
+            for (InstanceEntity entity = added.poll(); entity != null; entity = added.poll()) {
+                entities.add(entity);
+            }
+            if (!entities.isEmpty() && current.size() < maxLabels) {
+                current = current.with(entities.iterator(), maxLabels);
+            }
+        }
+        catch (Exception e) {
+            // Kept as is until the KB changes again.
+            logger.warn(marker, "Can't update entity labels of '{}'", dbId, e);
+        }
+    }
+}
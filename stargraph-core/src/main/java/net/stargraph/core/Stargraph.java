@@ -26,6 +26,8 @@ package net.stargraph.core;
  * ==========================License-End===============================
  */
 
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.typesafe.config.*;
 import net.stargraph.ModelUtils;
 import net.stargraph.StarGraphException;
@@ -37,17 +39,24 @@ import net.stargraph.core.impl.jena.JenaGraphSearcher;
 import net.stargraph.core.index.Indexer;
 import net.stargraph.core.index.IndexerFactory;
 import net.stargraph.core.processors.Processors;
+import net.stargraph.core.query.Analyzers;
+import net.stargraph.core.query.Gazetteer;
+import net.stargraph.core.query.QueryEngine;
+import net.stargraph.core.query.ResponseCache;
 import net.stargraph.core.search.BaseSearcher;
 import net.stargraph.core.search.EntitySearcher;
 import net.stargraph.core.search.Searcher;
 import net.stargraph.data.DataProvider;
 import net.stargraph.data.DataProviderFactory;
+import net.stargraph.data.Indexable;
 import net.stargraph.data.processor.Holder;
 import net.stargraph.data.processor.Processor;
 import net.stargraph.data.processor.ProcessorChain;
 import net.stargraph.model.BuiltInModel;
+import net.stargraph.model.InstanceEntity;
 import net.stargraph.model.KBId;
 import net.stargraph.query.Language;
+import net.stargraph.rank.Rankers;
 import org.apache.jena.rdf.model.Model;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +67,8 @@ import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -72,6 +83,13 @@ public final class Stargraph {
     private Map<KBId, Indexer> indexers;
     private Map<KBId, Searcher> searchers;
     private Map<String, Namespace> namespaces;
+    private Map<String, GraphSearcher> graphSearchers;
+    private Map<String, ResponseCache> responseCaches;
+    private Map<String, GazetteerUpdater> gazetteers;
+    private ExecutorService gazetteerExecutor;
+    private Map<String, QueryEngine> queryEngines;
+    private EntitySearcher entitySearcher;
+    private Analyzers analyzers;
     private IndexerFactory indexerFactory;
     private GraphModelFactory modelFactory;
     private boolean initialized;
@@ -90,8 +108,19 @@ public final class Stargraph {
         this.indexers = new ConcurrentHashMap<>();
         this.searchers = new ConcurrentHashMap<>();
         this.namespaces = new ConcurrentHashMap<>();
+        this.graphSearchers = new ConcurrentHashMap<>();
+        this.responseCaches = new ConcurrentHashMap<>();
+        this.gazetteers = new ConcurrentHashMap<>();
+        this.gazetteerExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("gazetteer-%d").setDaemon(true).build());
+        this.queryEngines = new ConcurrentHashMap<>();
+        this.entitySearcher = createEntitySearcher();
         this.kbLoaders = new ConcurrentHashMap<>();
 
+        if (mainConfig.hasPath("ranking.rankers")) {
+            Rankers.configure(mainConfig.getConfig("ranking.rankers"));
+        }
+
         setIndexerFactory(createIndexerFactory());
         setModelFactory(new HDTModelFactory(this));
 
@@ -121,10 +150,123 @@ public final class Stargraph {
         return new ElasticEntitySearcher(this);
     }
 
+    /**
+     * Entity searchers are stateless, this one is shared by the query path.
+     */
+    public EntitySearcher getEntitySearcher() {
+        return entitySearcher;
+    }
+
+    /**
+     * Rules and annotators are the same for every KB, so are their analyzers.
+     */
+    /**
+     * @return false until the analyzers were first needed, see {@link #getAnalyzers()}.
+     */
+    public synchronized boolean hasAnalyzers() {
+        return analyzers != null;
+    }
+
+    public synchronized Analyzers getAnalyzers() {
+        if (analyzers == null) {
+            analyzers = new Analyzers(mainConfig);
+        }
+        return analyzers;
+    }
+
+    /**
+     * Reloads the NLI rules from the current configuration files, keeping the annotators and every other state.
+     */
+    public void reloadRules() {
+        ConfigFactory.invalidateCaches();
+        reloadRules(ConfigFactory.load().getConfig("stargraph"));
+    }
+
+    /**
+     * Only the rules are taken from the given configuration. Cached answers were built with the former rules
+     * so they are dropped.
+     */
+    public void reloadRules(Config config) {
+        logger.info(marker, "Reloading rules.");
+        getAnalyzers().reload(config);
+        responseCaches.values().forEach(ResponseCache::invalidateAll);
+    }
+
+    public QueryEngine getQueryEngine(String dbId) {
+        return queryEngines.computeIfAbsent(dbId, (id) -> new QueryEngine(id, this));
+    }
+
     public GraphSearcher createGraphSearcher(String dbId) {
         return new JenaGraphSearcher(dbId, this);
     }
 
+    /**
+     * Shared graph searcher of the KB, thus sharing its parsed queries cache.
+     */
+    public GraphSearcher getGraphSearcher(String dbId) {
+        return graphSearchers.computeIfAbsent(dbId, this::createGraphSearcher);
+    }
+
+    /**
+     * Graph searchers created so far, by KB.
+     */
+    public Map<String, GraphSearcher> getGraphSearchers() {
+        return Collections.unmodifiableMap(graphSearchers);
+    }
+
+    public ResponseCache getResponseCache(String dbId) {
+        return responseCaches.computeIfAbsent(dbId, (id) -> new ResponseCache(id, mainConfig.getConfig("query.cache")));
+    }
+
+    /**
+     * Must be called whenever the data of the KB changes, the entity labels are then read again.
+     */
+    public void invalidateResponses(String dbId) {
+        ResponseCache cache = responseCaches.get(dbId);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        GazetteerUpdater gazetteer = gazetteers.get(dbId);
+        if (gazetteer != null) {
+            gazetteer.reload();
+        }
+    }
+
+    /**
+     * Must be called whenever a single entry is added to the KB, new entities are added to the known labels.
+     */
+    public void invalidateResponses(KBId kbId, Indexable data) {
+        ResponseCache cache = responseCaches.get(kbId.getId());
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        GazetteerUpdater gazetteer = gazetteers.get(kbId.getId());
+        if (gazetteer != null && "entities".equals(kbId.getType()) && data.get() instanceof InstanceEntity) {
+            gazetteer.add((InstanceEntity) data.get());
+        }
+    }
+
+    /**
+     * Labels of the KB entities. Loaded from the graph in the background, empty until then.
+     */
+    public Gazetteer getGazetteer(String dbId) {
+        return gazetteers.computeIfAbsent(dbId, id -> {
+            int maxLabels = mainConfig.getInt("query.gazetteer.max-labels");
+            GazetteerUpdater gazetteer = new GazetteerUpdater(id, () -> createGazetteer(id, maxLabels),
+                    maxLabels, gazetteerExecutor);
+            gazetteer.reload();
+            return gazetteer;
+        }).get();
+    }
+
+    private Gazetteer createGazetteer(String dbId, int maxLabels) {
+        EntityIterator entities = new EntityIterator(this, KBId.of(dbId, "entities"));
+        // Every triple yields its subject and object, thus the same entity many times.
+        Set<String> seen = new HashSet<>();
+        return new Gazetteer(Iterators.filter(Iterators.transform(entities, indexable -> (InstanceEntity) indexable.get()),
+                entity -> seen.add(entity.getId())), maxLabels);
+    }
+
     public Model getGraphModel(String dbId) {
         return modelFactory.getModel(dbId);
     }
@@ -242,12 +384,38 @@ public final class Stargraph {
         initialized = true;
     }
 
+    /**
+     * Builds ahead of time what the first query of each KB would otherwise pay for:
+     * analyzers and tagger models, query engines, graph searchers, graph models and entity labels.
+     */
+    public void warmUp() {
+        Set<String> dbIds = getKBs().stream().map(KBId::getId).collect(Collectors.toCollection(TreeSet::new));
+        for (String dbId : dbIds) {
+            long startTime = System.nanoTime();
+            logger.info(marker, "Warming up '{}'", dbId);
+            try {
+                getNamespace(dbId);
+                getAnalyzers().warmUp(getLanguage(dbId));
+                getQueryEngine(dbId);
+                getGraphSearcher(dbId);
+                getGraphModel(dbId);
+                getGazetteer(dbId);
+                logger.info(marker, "'{}' ready in {}s", dbId, (System.nanoTime() - startTime) / 1e9);
+            }
+            catch (Exception e) {
+                logger.warn(marker, "Warm up of '{}' failed, will be retried on first use.", dbId, e);
+            }
+        }
+    }
+
     public synchronized final void terminate() {
         if (!initialized) {
             throw new IllegalStateException("Not initialized");
         }
         initialized = false;
-        // future shutdown procedure if needed.
+        queryEngines.values().forEach(QueryEngine::close);
+        queryEngines.clear();
+        gazetteerExecutor.shutdownNow();
     }
 
     private void initializeKB() {
@@ -27,14 +27,65 @@ package net.stargraph.core.graph;
  */
 
 import net.stargraph.model.LabeledEntity;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.sparql.engine.binding.Binding;
 
-import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface GraphSearcher {
 
-    Map<String, List<LabeledEntity>> select(String sparqlQuery);
+    /**
+     * Parses a SPARQL query, the same text is parsed only once.
+     */
+    Query parse(String sparqlQuery);
+
+    /**
+     * Text equal for queries differing only by insignificant whitespace.
+     */
+    String normalize(String sparqlQuery);
+
+    SelectResult select(String sparqlQuery);
+
+    SelectResult select(String sparqlQuery, ModifiableGraphSearchParams params);
+
+    /**
+     * Same as {@link #select(String, ModifiableGraphSearchParams)} for an already built query, thus skipping the parsing.
+     */
+    SelectResult select(Query query, ModifiableGraphSearchParams params);
+
+    /**
+     * Hands each solution (variable name to value) to the consumer as soon as it is read, nothing is kept.
+     *
+     * @return true if the execution stopped before the end, see {@link SelectResult#isTruncated()}.
+     */
+    boolean select(Query query, ModifiableGraphSearchParams params, Consumer<Map<String, LabeledEntity>> consumer);
+
+    /**
+     * Lower level form of {@link #select(Query, ModifiableGraphSearchParams, Consumer)} handing over the raw solutions,
+     * the values are not looked up in the indexes.
+     */
+    boolean selectBindings(Query query, ModifiableGraphSearchParams params, Consumer<Binding> consumer);
 
     boolean ask(String sparqlQuery);
 
+    boolean ask(Query query, ModifiableGraphSearchParams params);
+
+    /**
+     * Runs a CONSTRUCT or DESCRIBE query handing each triple to the consumer as it is produced,
+     * so the resulting graph is never held in memory.
+     *
+     * @return true if the execution stopped before the end.
+     */
+    boolean construct(Query query, ModifiableGraphSearchParams params, Consumer<Triple> consumer);
+
+    /**
+     * Stops the running query started with the given id, its partial results come back truncated.
+     * The queries derived from it, named 'queryId/n', are stopped too.
+     *
+     * @return false if no such query is running.
+     */
+    boolean cancel(String queryId);
+
 }
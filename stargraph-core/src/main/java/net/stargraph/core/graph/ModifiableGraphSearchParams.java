@@ -0,0 +1,90 @@
+package net.stargraph.core.graph;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+/**
+ * Per request overrides of the KB graph search defaults ('graph-search' configuration).
+ */
+public final class ModifiableGraphSearchParams {
+    private long timeout;
+    private int maxRows;
+    private String queryId;
+
+    private ModifiableGraphSearchParams() {
+        this.timeout = -1;
+        this.maxRows = -1;
+    }
+
+    public static ModifiableGraphSearchParams create() {
+        return new ModifiableGraphSearchParams();
+    }
+
+    /**
+     * Execution timeout in milliseconds, not positive values fall back to the KB default.
+     */
+    public ModifiableGraphSearchParams timeout(long timeoutMillis) {
+        this.timeout = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * Maximum number of rows read from the results, not positive values fall back to the KB default.
+     */
+    public ModifiableGraphSearchParams maxRows(int maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    /**
+     * Caller chosen identifier, required to cancel the running query.
+     */
+    public ModifiableGraphSearchParams queryId(String queryId) {
+        this.queryId = queryId;
+        return this;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public String getQueryId() {
+        return queryId;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphSearchParams{" +
+                "timeout=" + timeout +
+                ", maxRows=" + maxRows +
+                ", queryId='" + queryId + '\'' +
+                '}';
+    }
+}
@@ -26,8 +26,10 @@ package net.stargraph.core.impl.corenlp;
  * ==========================License-End===============================
  */
 
+import com.typesafe.config.Config;
 import edu.stanford.nlp.ling.HasWord;
 import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+import net.stargraph.StarGraphException;
 import net.stargraph.UnsupportedLanguageException;
 import net.stargraph.core.query.annotator.Annotator;
 import net.stargraph.core.query.annotator.PartOfSpeechSet;
@@ -38,38 +40,87 @@ import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static net.stargraph.query.Language.EN;
 
+/**
+ * Keeps a pool of taggers per language, an annotation borrows one while tagging.
+ * The whole pool is loaded at once, when the language is preloaded or else on its first annotation.
+ */
 public final class CoreNLPAnnotator extends Annotator {
 
-    private Map<Language, MaxentTagger> taggers;
+    private Map<Language, BlockingQueue<MaxentTagger>> taggers;
+    private int poolSize;
+    private long waitMillis;
 
-    public CoreNLPAnnotator() {
-        taggers = new ConcurrentHashMap<>();
+    public CoreNLPAnnotator(Config config) {
+        Objects.requireNonNull(config);
+        this.taggers = new ConcurrentHashMap<>();
+        this.poolSize = Math.max(1, config.getInt("corenlp.tagger-pool-size"));
+        this.waitMillis = config.getDuration("corenlp.tagger-wait", TimeUnit.MILLISECONDS);
     }
 
+    @Override
+    protected void doLoad(Language language) {
+        getTaggers(language);
+    }
 
     @Override
     protected List<Word> doRun(Language language, String sentence) {
-        MaxentTagger tagger = taggers.computeIfAbsent(language, lang -> {
-            if (lang == EN) {
-                return new MaxentTagger("edu/stanford/nlp/models/pos-tagger/english-left3words/english-left3words-distsim.tagger");
-            }
-            throw new UnsupportedLanguageException(lang);
-        });
-
+        BlockingQueue<MaxentTagger> pool = getTaggers(language);
         PartOfSpeechSet partOfSpeechSet = PartOfSpeechSet.getPOSSet(language);
         List<Word> words = new ArrayList<>();
 
         List<List<HasWord>> sentences = MaxentTagger.tokenizeText(new StringReader(sentence));
-        sentences.forEach(s -> {
-            tagger.tagSentence(s).forEach(taggedWord ->
-                    words.add(new Word(partOfSpeechSet.valueOf(taggedWord.tag()), taggedWord.value())));
-        });
+
+        MaxentTagger tagger;
+        try {
+            tagger = pool.poll(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StarGraphException("Interrupted while waiting for a tagger", e);
+        }
+
+        if (tagger == null) {
+            throw new StarGraphException("No free tagger for '" + language + "' after " + waitMillis + "ms");
+        }
+
+        try {
+            sentences.forEach(s -> {
+                tagger.tagSentence(s).forEach(taggedWord ->
+                        words.add(new Word(partOfSpeechSet.valueOf(taggedWord.tag()), taggedWord.value())));
+            });
+        }
+        finally {
+            pool.add(tagger);
+        }
 
         return words;
     }
 
+    private BlockingQueue<MaxentTagger> getTaggers(Language language) {
+        return taggers.computeIfAbsent(language, lang -> {
+            String model = getModel(lang);
+            long startTime = System.nanoTime();
+            BlockingQueue<MaxentTagger> pool = new ArrayBlockingQueue<>(poolSize);
+            IntStream.range(0, poolSize).parallel().mapToObj(i -> new MaxentTagger(model)).forEach(pool::add);
+            logger.info(marker, "{} taggers for '{}' loaded in {}s", poolSize, lang,
+                    String.format("%.3f", (System.nanoTime() - startTime) / 1e9));
+            return pool;
+        });
+    }
+
+    private static String getModel(Language language) {
+        if (language == EN) {
+            return "edu/stanford/nlp/models/pos-tagger/english-left3words/english-left3words-distsim.tagger";
+        }
+        throw new UnsupportedLanguageException(language);
+    }
+
 }
@@ -38,6 +38,6 @@ public final class CoreNLPAnnotatorFactory extends AnnotatorFactory {
 
     @Override
     public Annotator create() {
-        return new CoreNLPAnnotator();
+        return new CoreNLPAnnotator(this.config);
     }
 }
@@ -30,6 +30,8 @@ import net.stargraph.core.Namespace;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.search.EntitySearcher;
 import net.stargraph.core.search.Searcher;
+import net.stargraph.core.trace.QueryTrace;
+import net.stargraph.core.trace.Span;
 import net.stargraph.model.*;
 import net.stargraph.rank.*;
 import org.apache.lucene.search.join.ScoreMode;
@@ -39,9 +41,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
@@ -82,9 +82,7 @@ public final class ElasticEntitySearcher implements EntitySearcher {
 
         searchParams.model(BuiltInModel.FACT);
 
-        if (rankParams instanceof ModifiableIndraParams) {
-            configureDistributionalParams(searchParams.getKbId(), (ModifiableIndraParams) rankParams);
-        }
+        configureRankParams(searchParams.getKbId(), rankParams);
 
         QueryBuilder queryBuilder = boolQuery()
                 .must(nestedQuery("p",
@@ -99,7 +97,7 @@ public final class ElasticEntitySearcher implements EntitySearcher {
         List<Score> classes2Score = scores.stream()
                 .map(s -> new Score(((Fact)s.getEntry()).getObject(), s.getValue())).collect(Collectors.toList());
 
-        return Rankers.apply(new Scores(classes2Score), rankParams, searchParams.getSearchTerm());
+        return rank(new Scores(classes2Score), rankParams, searchParams.getSearchTerm());
     }
 
     @Override
@@ -112,8 +110,9 @@ public final class ElasticEntitySearcher implements EntitySearcher {
         Searcher searcher = core.getSearcher(searchParams.getKbId());
         // Fetch initial candidates from the search engine
         Scores scores = searcher.search(new ElasticQueryHolder(queryBuilder, searchParams));
+        configureRankParams(searchParams.getKbId(), rankParams);
         // Re-Rank
-        return Rankers.apply(scores, rankParams, searchParams.getSearchTerm());
+        return rank(scores, rankParams, searchParams.getSearchTerm());
     }
 
     @Override
@@ -121,9 +120,7 @@ public final class ElasticEntitySearcher implements EntitySearcher {
 
         searchParams.model(BuiltInModel.PROPERTY);
 
-        if (rankParams instanceof ModifiableIndraParams) {
-            configureDistributionalParams(searchParams.getKbId(), (ModifiableIndraParams) rankParams);
-        }
+        configureRankParams(searchParams.getKbId(), rankParams);
 
         QueryBuilder queryBuilder = boolQuery()
                 .should(nestedQuery("hyponyms",
@@ -137,7 +134,7 @@ public final class ElasticEntitySearcher implements EntitySearcher {
         Searcher searcher = core.getSearcher(searchParams.getKbId());
         Scores scores = searcher.search(new ElasticQueryHolder(queryBuilder, searchParams));
 
-        return Rankers.apply(scores, rankParams, searchParams.getSearchTerm());
+        return rank(scores, rankParams, searchParams.getSearchTerm());
     }
 
     @Override
@@ -146,9 +143,7 @@ public final class ElasticEntitySearcher implements EntitySearcher {
 
         searchParams.model(BuiltInModel.FACT);
 
-        if (rankParams instanceof ModifiableIndraParams) {
-            configureDistributionalParams(searchParams.getKbId(), (ModifiableIndraParams) rankParams);
-        }
+        configureRankParams(searchParams.getKbId(), rankParams);
 
         QueryBuilder queryBuilder = boolQuery()
                 .should(nestedQuery("s", termQuery("s.id", pivot.getId()), ScoreMode.Max))
@@ -158,14 +153,43 @@ public final class ElasticEntitySearcher implements EntitySearcher {
         Scores scores = searcher.search(new ElasticQueryHolder(queryBuilder, searchParams));
 
         // We have to remap the facts to properties, the real target of the ranker call.
-        // Thus we're discarding the score values from the underlying search engine. Shall we?
-        Scores propScores = new Scores(scores.stream()
-                .map(s -> ((Fact) s.getEntry()).getPredicate())
-                .distinct()
-                .map(p -> new Score(p, 0))
-                .collect(Collectors.toList()));
-
-        return Rankers.apply(propScores, rankParams, searchParams.getSearchTerm());
+        // Each property keeps its best fact score and how many facts it shows up in.
+        Map<PropertyEntity, double[]> props = new LinkedHashMap<>();
+        for (Score s : scores) {
+            double[] stats = props.computeIfAbsent(((Fact) s.getEntry()).getPredicate(), p -> new double[2]);
+            stats[0] = Math.max(stats[0], s.getValue());
+            stats[1]++;
+        }
+
+        Scores propScores = new Scores(props.size());
+        props.forEach((p, stats) -> propScores.add(new Score(p, stats[0])));
+
+        if (rankParams instanceof ModifiableLTRParams) {
+            double maxCount = props.values().stream().mapToDouble(stats -> stats[1]).max().orElse(1);
+            Map<String, Double> popularity = new HashMap<>(props.size() * 2);
+            props.forEach((p, stats) -> popularity.put(p.getId(), stats[1] / maxCount));
+            ((ModifiableLTRParams) rankParams).popularity(popularity);
+        }
+
+        return rank(propScores, rankParams, searchParams.getSearchTerm());
+    }
+
+    private Scores rank(Scores scores, ModifiableRankParams rankParams, String target) {
+        try (Span ignored = QueryTrace.span("ranking", rankParams.getRankingModel().name())) {
+            return Rankers.apply(scores, rankParams, target);
+        }
+    }
+
+    private void configureRankParams(KBId kbId, ModifiableRankParams rankParams) {
+        if (rankParams instanceof ModifiableIndraParams) {
+            configureDistributionalParams(kbId, (ModifiableIndraParams) rankParams);
+        }
+        else if (rankParams instanceof ModifiableLTRParams) {
+            ModifiableIndraParams embeddingParams = ((ModifiableLTRParams) rankParams).getEmbeddingParams();
+            if (embeddingParams != null) {
+                configureDistributionalParams(kbId, embeddingParams);
+            }
+        }
     }
 
     private void configureDistributionalParams(KBId kbId, ModifiableIndraParams params) {
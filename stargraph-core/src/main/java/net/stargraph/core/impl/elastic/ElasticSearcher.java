@@ -31,6 +31,8 @@ import net.stargraph.core.Stargraph;
 import net.stargraph.core.search.BaseSearcher;
 import net.stargraph.core.search.SearchQueryHolder;
 import net.stargraph.core.serializer.ObjectSerializer;
+import net.stargraph.core.trace.QueryTrace;
+import net.stargraph.core.trace.Span;
 import net.stargraph.model.KBId;
 import net.stargraph.rank.Score;
 import net.stargraph.rank.Scores;
@@ -90,6 +92,8 @@ public final class ElasticSearcher extends BaseSearcher {
             }
         };
 
-        return scroller.getScores();
+        try (Span ignored = QueryTrace.span("elastic", holder.getSearchParams().getKbId().toString())) {
+            return scroller.getScores();
+        }
     }
 }
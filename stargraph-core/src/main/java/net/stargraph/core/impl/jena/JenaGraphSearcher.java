@@ -26,16 +26,30 @@ package net.stargraph.core.impl.jena;
  * ==========================License-End===============================
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.typesafe.config.Config;
 import net.stargraph.ModelUtils;
+import net.stargraph.StarGraphException;
 import net.stargraph.core.Namespace;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.graph.GraphSearcher;
+import net.stargraph.core.graph.ModifiableGraphSearchParams;
+import net.stargraph.core.graph.SelectResult;
 import net.stargraph.core.search.EntitySearcher;
 import net.stargraph.model.LabeledEntity;
 import net.stargraph.model.ValueEntity;
+import net.stargraph.core.trace.QueryTrace;
+import net.stargraph.core.trace.Span;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.graph.impl.LiteralLabel;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryCancelledException;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.binding.Binding;
@@ -45,6 +59,9 @@ import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public final class JenaGraphSearcher implements GraphSearcher {
     private Logger logger = LoggerFactory.getLogger(getClass());
@@ -52,63 +69,316 @@ public final class JenaGraphSearcher implements GraphSearcher {
     private Namespace ns;
     private Stargraph core;
     private String dbId;
+    private Cache<String, Query> queryCache;
+    private Map<String, QueryExecution> running;
+    private long defaultTimeout;
+    private int defaultMaxRows;
+    private long maxTimeout;
+    private int maxRowsCap;
 
     public JenaGraphSearcher(String dbId, Stargraph core) {
         this.core = Objects.requireNonNull(core);
         this.dbId = Objects.requireNonNull(dbId);
         this.ns = core.getNamespace(dbId);
+        this.queryCache = CacheBuilder.newBuilder()
+                .maximumSize(core.getConfig().getLong("graph-search.query-cache-size"))
+                .recordStats()
+                .build();
+        this.running = new ConcurrentHashMap<>();
+
+        // KB settings take precedence over the global ones
+        Config config = core.getKBConfig(dbId).withFallback(core.getConfig());
+        this.defaultTimeout = config.getDuration("graph-search.timeout", TimeUnit.MILLISECONDS);
+        this.defaultMaxRows = config.getInt("graph-search.max-rows");
+        this.maxTimeout = config.getDuration("graph-search.max-timeout", TimeUnit.MILLISECONDS);
+        this.maxRowsCap = config.getInt("graph-search.max-rows-cap");
     }
 
     @Override
-    public Map<String, List<LabeledEntity>> select(String sparqlQuery) {
-        return doSparqlQuery(sparqlQuery);
+    public SelectResult select(String sparqlQuery) {
+        return select(sparqlQuery, ModifiableGraphSearchParams.create());
     }
 
     @Override
-    public boolean ask(String sparqlQuery) {
-        return false;
+    public SelectResult select(String sparqlQuery, ModifiableGraphSearchParams params) {
+        return select(parse(sparqlQuery), params);
     }
 
-    private Map<String, List<LabeledEntity>> doSparqlQuery(String sparqlQuery) {
-        logger.debug(marker, "Executing: {}", sparqlQuery);
+    @Override
+    public SelectResult select(Query query, ModifiableGraphSearchParams params) {
+        SelectResult result = new SelectResult();
+        boolean truncated = select(query, params, row -> row.forEach((var, entity) ->
+                result.computeIfAbsent(var, (v) -> new ArrayList<>()).add(entity)));
+        result.setTruncated(truncated);
+
+        if (result.isEmpty()) {
+            logger.warn(marker, "No matches for {}", query);
+        }
+
+        return result;
+    }
 
-        long startTime = System.currentTimeMillis();
+    @Override
+    public boolean select(Query query, ModifiableGraphSearchParams params, Consumer<Map<String, LabeledEntity>> consumer) {
+        EntitySearcher entitySearcher = core.getEntitySearcher();
 
-        Map<String, List<LabeledEntity>> result = new LinkedHashMap<>();
-        EntitySearcher entitySearcher = core.createEntitySearcher();
+        return selectBindings(query, params, jBinding -> {
+            Map<String, LabeledEntity> row = new LinkedHashMap<>();
+            Iterator<Var> vars = jBinding.vars();
+            while (vars.hasNext()) {
+                Var jVar = vars.next();
+                row.put(jVar.getVarName(), toEntity(jBinding.get(jVar), entitySearcher));
+            }
+            consumer.accept(row);
+        });
+    }
 
-        try (QueryExecution qexec = QueryExecutionFactory.create(sparqlQuery, core.getGraphModel(dbId))) {
+    @Override
+    public boolean selectBindings(Query query, ModifiableGraphSearchParams params, Consumer<Binding> consumer) {
+        if (!query.isSelectType()) {
+            throw new StarGraphException("Not a SELECT query: " + query);
+        }
+
+        return execute(query, params, (qexec, maxRows) -> {
             ResultSet results = qexec.execSelect();
+            int rows = 0;
 
             while (results.hasNext()) {
-                Binding jBinding = results.nextBinding();
-                Iterator<Var> vars = jBinding.vars();
-                while (vars.hasNext()) {
-                    Var jVar = vars.next();
-
-                    if (!jBinding.get(jVar).isLiteral()) {
-                        String id = jBinding.get(jVar).getURI();
-                        List<LabeledEntity> entities = result.computeIfAbsent(jVar.getVarName(), (v) -> new ArrayList<>());
-                        LabeledEntity labeledEntity = ns.isFromMainNS(id) ? entitySearcher.getEntity(dbId, id) : ModelUtils.createInstance(id);
-                        entities.add(labeledEntity);
-                    } else {
-                        LiteralLabel lit = jBinding.get(jVar).getLiteral();
-                        ValueEntity valueEntity = new ValueEntity(lit.getLexicalForm(), lit.getDatatype().getURI(), lit.language());
-                        result.computeIfAbsent(jVar.getVarName(), (v) -> new ArrayList<>()).add(valueEntity);
-                    }
+                if (maxRows > 0 && rows++ >= maxRows) {
+                    logger.warn(marker, "Reached the limit of {} rows.", maxRows);
+                    return true;
                 }
+                consumer.accept(results.nextBinding());
             }
+
+            return false;
+        });
+    }
+
+    @Override
+    public boolean ask(String sparqlQuery) {
+        return ask(parse(sparqlQuery), ModifiableGraphSearchParams.create());
+    }
+
+    @Override
+    public boolean ask(Query query, ModifiableGraphSearchParams params) {
+        if (!query.isAskType()) {
+            throw new StarGraphException("Not an ASK query: " + query);
         }
 
-        long millis = System.currentTimeMillis() - startTime;
+        boolean[] answer = new boolean[1];
+        if (execute(query, params, (qexec, maxRows) -> { answer[0] = qexec.execAsk(); return false; })) {
+            // Unlike the other forms there is no partial answer to give.
+            throw new StarGraphException("ASK query stopped before its end: " + query);
+        }
 
-        if (!result.isEmpty()) {
-            logger.info(marker, "SPARQL {} query took {}s", sparqlQuery, millis / 1000.0);
+        return answer[0];
+    }
+
+    @Override
+    public boolean construct(Query query, ModifiableGraphSearchParams params, Consumer<Triple> consumer) {
+        if (!query.isConstructType() && !query.isDescribeType()) {
+            throw new StarGraphException("Not a CONSTRUCT or DESCRIBE query: " + query);
+        }
+
+        return execute(query, params, (qexec, maxRows) -> {
+            Iterator<Triple> triples = query.isConstructType() ? qexec.execConstructTriples() : qexec.execDescribeTriples();
+            int rows = 0;
+
+            while (triples.hasNext()) {
+                if (maxRows > 0 && rows++ >= maxRows) {
+                    logger.warn(marker, "Reached the limit of {} triples.", maxRows);
+                    return true;
+                }
+                consumer.accept(triples.next());
+            }
+
+            return false;
+        });
+    }
+
+    @Override
+    public boolean cancel(String queryId) {
+        Objects.requireNonNull(queryId);
+        // The queries derived from this one, such as the pivot candidates, are named 'queryId/n'.
+        final String prefix = queryId + "/";
+        boolean cancelled = false;
+        for (Map.Entry<String, QueryExecution> entry : running.entrySet()) {
+            if (entry.getKey().equals(queryId) || entry.getKey().startsWith(prefix)) {
+                logger.info(marker, "Cancelling query '{}'", entry.getKey());
+                entry.getValue().abort();
+                cancelled = true;
+            }
         }
-        else {
-            logger.warn(marker, "No matches for {}", sparqlQuery);
+        return cancelled;
+    }
+
+    public CacheStats getQueryCacheStats() {
+        return queryCache.stats();
+    }
+
+    public long getQueryCacheSize() {
+        return queryCache.size();
+    }
+
+    /**
+     * Parsed queries are kept in a LRU cache keyed by their normalized text, its stats are part of the admin metrics.
+     * They are never modified afterwards, so executions can share them.
+     */
+    @Override
+    public Query parse(String sparqlQuery) {
+        String key = normalizeQuery(sparqlQuery);
+        Query query = queryCache.getIfPresent(key);
+
+        if (query == null) {
+            query = QueryFactory.create(sparqlQuery);
+            query.setResultVars(); // the only lazy initialization, done before sharing it
+            queryCache.put(key, query);
         }
 
-        return result;
+        return query;
+    }
+
+    @Override
+    public String normalize(String sparqlQuery) {
+        return normalizeQuery(sparqlQuery);
+    }
+
+    /**
+     * Collapses the whitespace outside of literals and IRIs.
+     * Queries with comments or long literals are only trimmed, line breaks or quotes matter to them.
+     * A '<' only opens an IRI when a whole IRI follows, otherwise it is the comparison operator.
+     */
+    public static String normalizeQuery(String sparqlQuery) {
+        if (sparqlQuery.contains("\"\"\"") || sparqlQuery.contains("'''")) {
+            return sparqlQuery.trim();
+        }
+
+        StringBuilder sb = new StringBuilder(sparqlQuery.length());
+        char quote = 0;
+        boolean space = false;
+
+        for (int i = 0; i < sparqlQuery.length(); i++) {
+            char c = sparqlQuery.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < sparqlQuery.length()) {
+                    sb.append(sparqlQuery.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if (c == '#') {
+                    return sparqlQuery.trim();
+                }
+                if (space && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                space = false;
+                int iriEnd = c == '<' ? iriEnd(sparqlQuery, i) : -1;
+                if (iriEnd > 0) {
+                    sb.append(sparqlQuery, i, iriEnd + 1);
+                    i = iriEnd;
+                    continue;
+                }
+                sb.append(c);
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Index of the '>' closing the IRI opened at the given position, -1 if the characters are not those of an IRIREF.
+     */
+    private static int iriEnd(String text, int open) {
+        for (int i = open + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '>') {
+                return i;
+            }
+            if (c <= ' ' || "<\"{}|^`\\".indexOf(c) >= 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Runs the query with the effective timeout and row limit, those of the request can't go beyond the caps.
+     *
+     * @return true if the execution stopped before the end.
+     */
+    private boolean execute(Query sparqlQuery, ModifiableGraphSearchParams params, Execution execution) {
+        final long timeout = cap(params.getTimeout() > 0 ? params.getTimeout() : defaultTimeout, maxTimeout);
+        final int maxRows = (int) cap(params.getMaxRows() > 0 ? params.getMaxRows() : defaultMaxRows, maxRowsCap);
+        final String queryId = params.getQueryId();
+
+        logger.debug(marker, "Executing: {} (timeout={}ms, max-rows={})", sparqlQuery, timeout, maxRows);
+
+        long startTime = System.nanoTime();
+        boolean truncated;
+
+        try (Span ignored = QueryTrace.span("sparql-exec", queryId);
+             QueryExecution qexec = QueryExecutionFactory.create(sparqlQuery, core.getGraphModel(dbId))) {
+            if (timeout > 0) {
+                qexec.setTimeout(timeout);
+            }
+            if (queryId != null && running.putIfAbsent(queryId, qexec) != null) {
+                throw new StarGraphException("Query '" + queryId + "' is already running.");
+            }
+
+            try {
+                truncated = execution.run(qexec, maxRows);
+            }
+            catch (QueryCancelledException e) {
+                // Timed out or cancelled, whatever was read so far is still useful.
+                logger.warn(marker, "Query stopped before its end: {}", sparqlQuery);
+                truncated = true;
+            }
+            finally {
+                if (queryId != null) {
+                    running.remove(queryId, qexec);
+                }
+            }
+        }
+
+        long nanos = System.nanoTime() - startTime;
+        logger.info(marker, "SPARQL {} query took {}s", sparqlQuery, nanos / 1e9);
+
+        return truncated;
+    }
+
+    /**
+     * Zero means no limit, for the value and for the cap.
+     */
+    private static long cap(long value, long cap) {
+        if (cap <= 0) {
+            return value;
+        }
+        return value > 0 ? Math.min(value, cap) : cap;
+    }
+
+    private LabeledEntity toEntity(Node node, EntitySearcher entitySearcher) {
+        if (node.isLiteral()) {
+            LiteralLabel lit = node.getLiteral();
+            return new ValueEntity(lit.getLexicalForm(), lit.getDatatype().getURI(), lit.language());
+        }
+
+        String id = node.isURI() ? node.getURI() : node.toString();
+        return ns.isFromMainNS(id) ? entitySearcher.getEntity(dbId, id) : ModelUtils.createInstance(id);
+    }
+
+    @FunctionalInterface
+    private interface Execution {
+        /**
+         * @return true if stopped before consuming all the results.
+         */
+        boolean run(QueryExecution qexec, int maxRows);
     }
 }
@@ -47,22 +47,29 @@ import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The models are shared, but TokenizerME and POSTaggerME are not thread-safe, thus each thread gets its own.
+ */
 public final class OpenNLPAnnotator extends Annotator {
     private ConcurrentHashMap<Language, TokenizerModel> tokenizerModels;
     private ConcurrentHashMap<Language, POSModel> posModels;
+    private ConcurrentHashMap<Language, ThreadLocal<Tokenizer>> tokenizers;
+    private ConcurrentHashMap<Language, ThreadLocal<POSTaggerME>> taggers;
     private File modelsDir;
 
     public OpenNLPAnnotator(Config config) {
         this.tokenizerModels = new ConcurrentHashMap<>();
         this.posModels = new ConcurrentHashMap<>();
+        this.tokenizers = new ConcurrentHashMap<>();
+        this.taggers = new ConcurrentHashMap<>();
         this.modelsDir = new File(Objects.requireNonNull(config).getString("opennlp.models-dir"));
         logger.debug(marker, "Models dir: {}", modelsDir);
     }
 
     @Override
     public List<Word> doRun(Language language, String sentence) {
-        Tokenizer tokenizer = new TokenizerME(getTokenizerModel(language));
-        POSTaggerME tagger = new POSTaggerME(getPOSModel(language));
+        Tokenizer tokenizer = getTokenizer(language);
+        POSTaggerME tagger = getTagger(language);
         String[] tokens = tokenizer.tokenize(sentence);
         String[] tags = tagger.tag(tokens);
 
@@ -76,6 +83,22 @@ public final class OpenNLPAnnotator extends Annotator {
         return words;
     }
 
+    @Override
+    protected void doLoad(Language language) {
+        getTokenizerModel(language);
+        getPOSModel(language);
+    }
+
+    private Tokenizer getTokenizer(Language language) {
+        return tokenizers.computeIfAbsent(language,
+                lang -> ThreadLocal.withInitial(() -> new TokenizerME(getTokenizerModel(lang)))).get();
+    }
+
+    private POSTaggerME getTagger(Language language) {
+        return taggers.computeIfAbsent(language,
+                lang -> ThreadLocal.withInitial(() -> new POSTaggerME(getPOSModel(lang)))).get();
+    }
+
     private TokenizerModel getTokenizerModel(Language language) {
         return tokenizerModels.computeIfAbsent(language, this::readTokenizerModel);
     }
@@ -95,6 +95,7 @@ public abstract class BaseIndexer implements Indexer {
         }
 
         work(data);
+        core.invalidateResponses(kbId, data);
     }
 
     @Override
@@ -152,11 +153,13 @@ public abstract class BaseIndexer implements Indexer {
         dataProvider = core.createDataProvider(kbId);
         this.processorChain = core.createProcessorChain(kbId);
         beforeLoad(reset);
+        core.invalidateResponses(kbId.getId());
     }
 
     private void doAfterLoad() throws InterruptedException {
         logger.debug(marker, ".. after loading.");
         afterLoad();
+        core.invalidateResponses(kbId.getId());
     }
 
     private void sink(Holder h) {
@@ -0,0 +1,75 @@
+package net.stargraph.core.processors;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import net.stargraph.StarGraphException;
+import net.stargraph.data.processor.BaseProcessor;
+import net.stargraph.data.processor.Holder;
+import net.stargraph.data.processor.ProcessorException;
+import net.stargraph.model.InstanceEntity;
+import net.stargraph.model.PropertyEntity;
+import net.stargraph.rank.NGramSignature;
+
+import java.io.Serializable;
+
+/**
+ * Precomputes the n-gram signature of entities and properties labels, used by the Jaccard ranker.
+ */
+public final class NGramSignatureProcessor extends BaseProcessor {
+    public static String name = "ngram-signature";
+    private int n;
+
+    public NGramSignatureProcessor(Config config) {
+        super(config);
+        n = getConfig().getInt("n");
+    }
+
+    @Override
+    public void doRun(Holder<Serializable> holder) throws ProcessorException {
+        Serializable entry = holder.get();
+
+        if (entry instanceof InstanceEntity) {
+            InstanceEntity instance = (InstanceEntity) entry;
+            holder.set(new InstanceEntity(instance.getId(), instance.getValue(), instance.getOtherValues(),
+                    NGramSignature.of(instance.getValue(), n)));
+        }
+        else if (entry instanceof PropertyEntity) {
+            PropertyEntity property = (PropertyEntity) entry;
+            holder.set(new PropertyEntity(property.getId(), property.getValue(), property.getHypernyms(),
+                    property.getHyponyms(), property.getSynonyms(), NGramSignature.of(property.getValue(), n)));
+        }
+        else {
+            throw new StarGraphException("Unsupported type '" + entry.getClass() + "'");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -28,8 +28,8 @@ package net.stargraph.core.query;
 
 import com.typesafe.config.Config;
 import net.stargraph.StarGraphException;
-import net.stargraph.core.query.annotator.Annotator;
 import net.stargraph.core.query.annotator.AnnotatorFactory;
+import net.stargraph.core.query.annotator.CachedAnnotator;
 import net.stargraph.core.query.nli.QuestionAnalyzer;
 import net.stargraph.query.Language;
 
@@ -37,21 +37,55 @@ import java.lang.reflect.Constructor;
 import java.util.concurrent.ConcurrentHashMap;
 
 public final class Analyzers {
-    private Rules rules;
-    private Annotator annotator;
-    private ConcurrentHashMap<Language, QuestionAnalyzer> questionAnalyzers;
+    private volatile Rules rules;
+    private CachedAnnotator annotator;
+    private volatile ConcurrentHashMap<Language, QuestionAnalyzer> questionAnalyzers;
 
     public Analyzers(Config config) {
         this.rules = new Rules(config);
         AnnotatorFactory factory = createAnnotatorFactory(config);
-        this.annotator = factory.create();
+        this.annotator = new CachedAnnotator(factory.create(), config.getConfig("annotator.cache"));
         this.questionAnalyzers = new ConcurrentHashMap<>();
+
+        if (config.getBoolean("annotator.preload")) {
+            rules.getLanguages().forEach(annotator::load);
+        }
     }
 
     public QuestionAnalyzer getQuestionAnalyzer(Language language) {
         return questionAnalyzers.computeIfAbsent(language, lang -> new QuestionAnalyzer(lang, annotator, rules));
     }
 
+    /**
+     * Loads the rules again and replaces the analyzers built so far. Analyses already running keep the analyzer
+     * they got, and if the new rules fail to load the current ones stay. Annotations don't depend on the rules
+     * thus the annotator and its cache are kept.
+     */
+    public synchronized void reload(Config config) {
+        Rules newRules = new Rules(config);
+        ConcurrentHashMap<Language, QuestionAnalyzer> newAnalyzers = new ConcurrentHashMap<>();
+        questionAnalyzers.keySet().forEach(lang -> newAnalyzers.put(lang, new QuestionAnalyzer(lang, annotator, newRules)));
+        // Rules first, so an analyzer built on the new map never sees the old ones.
+        this.rules = newRules;
+        this.questionAnalyzers = newAnalyzers;
+    }
+
+    /**
+     * Builds the analyzer of the language and loads its annotator models, which otherwise happens on first use.
+     */
+    public void warmUp(Language language) {
+        getQuestionAnalyzer(language);
+        annotator.run(language, "Who is the wife of Barack Obama?");
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public CachedAnnotator getAnnotator() {
+        return annotator;
+    }
+
     public static AnnotatorFactory createAnnotatorFactory(Config config) {
         try {
             String className = config.getString("annotator.factory.class");
@@ -0,0 +1,103 @@
+package net.stargraph.core.query;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Answers of a batch of queries, in the input order.
+ * <p>
+ * Only a window of queries is handed to the executor ahead of the one being read, the next is submitted as each
+ * answer is taken, so a large batch never floods the executor queue. Meant to be read by a single thread.
+ */
+public final class Batch implements Iterator<Future<QueryResponse>>, AutoCloseable {
+    private final ExecutorService executor;
+    private final List<Callable<QueryResponse>> tasks;
+    private final Deque<Future<QueryResponse>> pending;
+    private Future<QueryResponse> current;
+    private int submitted;
+    private int taken;
+    private boolean closed;
+
+    public Batch(ExecutorService executor, List<Callable<QueryResponse>> tasks, int window) {
+        this.executor = Objects.requireNonNull(executor);
+        this.tasks = Objects.requireNonNull(tasks);
+        this.pending = new ArrayDeque<>();
+        while (submitted < Math.max(1, window) && submitNext()) {
+            // filling the window
+        }
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !closed && taken < tasks.size();
+    }
+
+    @Override
+    public Future<QueryResponse> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        current = pending.poll();
+        taken++;
+        submitNext();
+        return current;
+    }
+
+    /**
+     * Cancels the queries not answered yet, the rest are never started.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (current != null) {
+            current.cancel(true);
+        }
+        pending.forEach(f -> f.cancel(true));
+        pending.clear();
+    }
+
+    private boolean submitNext() {
+        if (submitted >= tasks.size()) {
+            return false;
+        }
+        pending.add(executor.submit(tasks.get(submitted++)));
+        return true;
+    }
+}
@@ -0,0 +1,274 @@
+package net.stargraph.core.query;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.model.InstanceEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.*;
+
+/**
+ * Entity labels of a KB, finding all of those mentioned in a text in a single pass (Aho-Corasick).
+ * <p>
+ * Labels are matched lower cased and with whitespace collapsed, see {@link #normalize(String)}, and only as whole words.
+ * Entities are read until the maximum number of labels is reached, the rest are ignored.
+ * Once built it is never changed, {@link #with(Iterator, int)} builds a copy having more entities.
+ */
+public final class Gazetteer {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Marker marker = MarkerFactory.getMarker("query");
+
+    private Node root;
+    private int size;
+
+    public Gazetteer(Iterator<InstanceEntity> entities, int maxLabels) {
+        this(null, entities, maxLabels);
+    }
+
+    private Gazetteer(Gazetteer base, Iterator<InstanceEntity> entities, int maxLabels) {
+        this.root = new Node(0);
+        long startTime = System.nanoTime();
+
+        if (base != null) {
+            base.copyTo(this, base.root, new StringBuilder());
+        }
+        while (size < maxLabels && entities.hasNext()) {
+            InstanceEntity entity = entities.next();
+            add(normalize(entity.getValue()), entity, maxLabels);
+            if (entity.getOtherValues() != null) {
+                entity.getOtherValues().forEach(label -> add(normalize(label), entity, maxLabels));
+            }
+        }
+        link();
+
+        logger.info(marker, "{} labels loaded in {}s", size, (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * A copy also having the given entities, this one is left as is.
+     */
+    public Gazetteer with(Iterator<InstanceEntity> entities, int maxLabels) {
+        return new Gazetteer(this, entities, maxLabels);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Entities of exactly this label.
+     */
+    public List<InstanceEntity> get(String label) {
+        Node node = root;
+        String normalized = normalize(label);
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.child(normalized.charAt(i));
+        }
+        return node != null && node.entities != null ? node.entities : Collections.emptyList();
+    }
+
+    /**
+     * Every label found in the text, overlapping ones included. Positions refer to the normalized text.
+     */
+    public List<Mention> find(String text) {
+        String normalized = normalize(text);
+        List<Mention> mentions = new ArrayList<>();
+
+        Node node = root;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            while (node != root && node.child(c) == null) {
+                node = node.fail;
+            }
+            Node next = node.child(c);
+            node = next != null ? next : root;
+
+            for (Node out = node.entities != null ? node : node.output; out != null; out = out.output) {
+                int start = i + 1 - out.depth;
+                if (isBoundary(normalized, start - 1) && isBoundary(normalized, i + 1)) {
+                    mentions.add(new Mention(start, i + 1, normalized.substring(start, i + 1), out.entities));
+                }
+            }
+        }
+        return mentions;
+    }
+
+    public static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private void add(String label, InstanceEntity entity, int maxLabels) {
+        if (label.isEmpty()) {
+            return;
+        }
+
+        Node node = root;
+        for (int i = 0; i < label.length() && node != null; i++) {
+            Node next = node.child(label.charAt(i));
+            node = next != null || size >= maxLabels ? next : node.add(label.charAt(i));
+        }
+        if (node == null) {
+            return;
+        }
+
+        if (node.entities == null) {
+            if (size >= maxLabels) {
+                return;
+            }
+            node.entities = new ArrayList<>(1);
+            size++;
+        }
+        for (InstanceEntity known : node.entities) {
+            if (known.getId().equals(entity.getId())) {
+                return;
+            }
+        }
+        node.entities.add(entity);
+    }
+
+    private void copyTo(Gazetteer target, Node node, StringBuilder label) {
+        if (node.entities != null) {
+            String key = label.toString();
+            node.entities.forEach(entity -> target.add(key, entity, Integer.MAX_VALUE));
+        }
+        for (int i = 0; i < node.keys.length; i++) {
+            label.append(node.keys[i]);
+            copyTo(target, node.children[i], label);
+            label.setLength(label.length() - 1);
+        }
+    }
+
+    /**
+     * Failure and output links, breadth first.
+     */
+    private void link() {
+        Deque<Node> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (Node child : root.children) {
+            child.fail = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.keys.length; i++) {
+                char c = node.keys[i];
+                Node child = node.children[i];
+                Node fail = node.fail;
+                while (fail != root && fail.child(c) == null) {
+                    fail = fail.fail;
+                }
+                Node target = fail.child(c);
+                child.fail = target != null && target != child ? target : root;
+                child.output = child.fail.entities != null ? child.fail : child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    private static boolean isBoundary(String text, int i) {
+        return i < 0 || i >= text.length() || !Character.isLetterOrDigit(text.charAt(i));
+    }
+
+    public static final class Mention {
+        private int start;
+        private int end;
+        private String label;
+        private List<InstanceEntity> entities;
+
+        Mention(int start, int end, String label, List<InstanceEntity> entities) {
+            this.start = start;
+            this.end = end;
+            this.label = label;
+            this.entities = Collections.unmodifiableList(entities);
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public List<InstanceEntity> getEntities() {
+            return entities;
+        }
+
+        @Override
+        public String toString() {
+            return "Mention{'" + label + "' [" + start + ", " + end + "), " + entities.size() + " entities}";
+        }
+    }
+
+    /**
+     * Children kept in sorted arrays, lighter than maps for the millions of nodes of a large KB.
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        final int depth;
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        List<InstanceEntity> entities;
+        Node fail;
+        Node output;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+
+        Node child(char c) {
+            int idx = Arrays.binarySearch(keys, c);
+            return idx >= 0 ? children[idx] : null;
+        }
+
+        Node add(char c) {
+            int idx = -(Arrays.binarySearch(keys, c) + 1);
+            Node child = new Node(depth + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, idx);
+            System.arraycopy(children, 0, newChildren, 0, idx);
+            newKeys[idx] = c;
+            newChildren[idx] = child;
+            System.arraycopy(keys, idx, newKeys, idx + 1, keys.length - idx);
+            System.arraycopy(children, idx, newChildren, idx + 1, children.length - idx);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
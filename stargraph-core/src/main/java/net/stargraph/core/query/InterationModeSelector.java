@@ -46,16 +46,44 @@ public final class InterationModeSelector {
     public InteractionMode detect(String queryString) {
         InteractionMode mode = NLI;
 
-        if (queryString.contains("SELECT") || queryString.contains("ASK") || queryString.contains("CONSTRUCT")) {
-            if (queryString.contains("PREFIX ") || queryString.contains("http:")) {
+        // All markers are found in a single pass.
+        boolean keyword = false, prefix = false, http = false, colon = false;
+        for (int i = 0; i < queryString.length(); i++) {
+            switch (queryString.charAt(i)) {
+                case 'S':
+                    keyword |= queryString.startsWith("SELECT", i);
+                    break;
+                case 'A':
+                    keyword |= queryString.startsWith("ASK", i);
+                    break;
+                case 'C':
+                    keyword |= queryString.startsWith("CONSTRUCT", i);
+                    break;
+                case 'D':
+                    keyword |= queryString.startsWith("DESCRIBE", i);
+                    break;
+                case 'P':
+                    prefix |= queryString.startsWith("PREFIX ", i);
+                    break;
+                case 'h':
+                    http |= queryString.startsWith("http:", i);
+                    break;
+                case ':':
+                    colon = true;
+                    break;
+            }
+        }
+
+        if (keyword) {
+            if (prefix || http) {
                 mode = InteractionMode.SPARQL;
             } else {
                 mode = InteractionMode.SA_SPARQL;
             }
         } else {
-            if (queryString.contains("http:")) {
+            if (http) {
                 mode = InteractionMode.SIMPLE_SPARQL;
-            } else if (queryString.contains(":")) {
+            } else if (colon) {
                 mode = InteractionMode.SA_SIMPLE_SPARQL;
             }
         }
@@ -26,26 +26,46 @@ package net.stargraph.core.query;
  * ==========================License-End===============================
  */
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.typesafe.config.Config;
 import net.stargraph.StarGraphException;
 import net.stargraph.core.Namespace;
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.graph.GraphSearcher;
+import net.stargraph.core.graph.ModifiableGraphSearchParams;
+import net.stargraph.core.graph.SelectResult;
 import net.stargraph.core.query.nli.*;
 import net.stargraph.core.query.response.AnswerSetResponse;
 import net.stargraph.core.query.response.NoResponse;
+import net.stargraph.core.query.response.SPARQLAskResponse;
+import net.stargraph.core.query.response.SPARQLGraphResponse;
 import net.stargraph.core.query.response.SPARQLSelectResponse;
 import net.stargraph.core.search.EntitySearcher;
+import net.stargraph.core.trace.QueryTrace;
+import net.stargraph.core.trace.Span;
 import net.stargraph.model.InstanceEntity;
 import net.stargraph.model.LabeledEntity;
+import net.stargraph.model.ValueEntity;
 import net.stargraph.query.InteractionMode;
 import net.stargraph.query.Language;
 import net.stargraph.rank.*;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static net.stargraph.query.InteractionMode.NLI;
@@ -59,32 +79,80 @@ public final class QueryEngine {
     private Stargraph core;
     private Analyzers analyzers;
     private GraphSearcher graphSearcher;
+    private EntitySearcher entitySearcher;
     private InterationModeSelector modeSelector;
     private Namespace namespace;
     private Language language;
+    private int pivotCandidates;
+    private ExecutorService pivotExecutor;
+    private ExecutorService batchExecutor;
+    private int batchThreads;
+    private int batchMaxSize;
+    private ThreadLocal<Map<String, Scores>> batchLookups = new ThreadLocal<>();
 
     public QueryEngine(String dbId, Stargraph core) {
         this.dbId = Objects.requireNonNull(dbId);
         this.core = Objects.requireNonNull(core);
-        this.analyzers = new Analyzers(core.getConfig());
-        this.graphSearcher = core.createGraphSearcher(dbId);
+        this.analyzers = core.getAnalyzers();
+        this.entitySearcher = core.getEntitySearcher();
+        this.graphSearcher = core.getGraphSearcher(dbId);
         this.namespace = core.getNamespace(dbId);
         this.language = core.getLanguage(dbId);
         this.modeSelector = new InterationModeSelector(core.getConfig(), language);
+        this.pivotCandidates = core.getConfig().getInt("query.pivot-candidates");
+        // The best candidate runs on the query thread, the others get at most one pivot thread each
+        // for every query thread, past that they run on the query thread too.
+        int pivotThreads = Math.max(1, core.getConfig().getInt("networking.query-executor.threads") * (pivotCandidates - 1));
+        this.pivotExecutor = new ThreadPoolExecutor(0, pivotThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("pivot-" + dbId + "-%d").setDaemon(true).build());
+        this.batchThreads = core.getConfig().getInt("query.batch-threads");
+        this.batchMaxSize = core.getConfig().getInt("query.batch-max-size");
+        this.batchExecutor = Executors.newFixedThreadPool(batchThreads,
+                new ThreadFactoryBuilder().setNameFormat("batch-" + dbId + "-%d").setDaemon(true).build());
     }
 
     public QueryResponse query(String query) {
-        final InteractionMode mode = modeSelector.detect(query);
+        return query(query, ModifiableGraphSearchParams.create());
+    }
+
+    /**
+     * Answers come from the KB response cache when the same query was answered before,
+     * except for CONSTRUCT and DESCRIBE whose triples are streamed for each caller.
+     */
+    public QueryResponse query(String query, ModifiableGraphSearchParams params) {
+        // Callers wanting the timings begin the trace themselves.
+        QueryTrace trace = QueryTrace.current() == null ? QueryTrace.begin() : null;
+        try (Span ignored = QueryTrace.span("query", dbId)) {
+            final InteractionMode mode = modeSelector.detect(query);
+            ResponseCache cache = core.getResponseCache(dbId);
+            if (mode == SPARQL) {
+                if (isGraphQuery(query)) {
+                    // Lazy, runs with the params of this caller only, see SPARQLGraphResponse.
+                    return doQuery(query, mode, params);
+                }
+                return cache.getNormalized(graphSearcher.normalize(query), params, () -> doQuery(query, mode, params));
+            }
+            return cache.get(query, params, () -> doQuery(query, mode, params));
+        }
+        finally {
+            if (trace != null) {
+                logger.debug(marker, "{}", trace);
+                trace.end();
+            }
+        }
+    }
+
+    private QueryResponse doQuery(String query, InteractionMode mode, ModifiableGraphSearchParams params) {
         QueryResponse response = new NoResponse(mode, query);
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         try {
             switch (mode) {
                 case NLI:
-                    response = nliQuery(query, language);
+                    response = nliQuery(query, language, params);
                     break;
                 case SPARQL:
-                    response = sparqlQuery(query);
+                    response = sparqlQuery(query, params);
                     break;
                 default:
                     throw new StarGraphException("Input type not yet supported");
@@ -98,50 +166,222 @@ public final class QueryEngine {
             throw new StarGraphException("Query Error", e);
         }
         finally {
-            long millis = System.currentTimeMillis() - startTime;
-            logger.info(marker, "Query Engine took {}s Response: {}",  millis / 1000.0, response);
+            long nanos = System.nanoTime() - startTime;
+            logger.info(marker, "Query Engine took {}s Response: {}",  nanos / 1e9, response);
         }
     }
 
-    private QueryResponse sparqlQuery(String userQuery) {
-        Map<String, List<LabeledEntity>> vars = graphSearcher.select(userQuery);
-        if (!vars.isEmpty()) {
-            return new SPARQLSelectResponse(SPARQL, userQuery, vars);
+    public List<QueryResponse> queryAll(List<String> queries) {
+        List<QueryResponse> responses = new ArrayList<>(queries.size());
+        Batch batch = queryAll(queries, ModifiableGraphSearchParams.create());
+        while (batch.hasNext()) {
+            try {
+                responses.add(batch.next().get());
+            }
+            catch (ExecutionException e) {
+                throw e.getCause() instanceof StarGraphException ?
+                        (StarGraphException) e.getCause() : new StarGraphException("Query Error", e);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StarGraphException("Interrupted", e);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Answers the queries in parallel, the answers come in the input order thus can be streamed while the rest runs.
+     * At most 'query.batch-threads' queries are submitted ahead of the answer being read, see {@link Batch}.
+     * Entity searches of the same term are done once for the whole batch and repeated queries are answered once.
+     * When a query id is given each query gets its own, suffixed by its position.
+     */
+    public Batch queryAll(List<String> queries, ModifiableGraphSearchParams params) {
+        if (queries.size() > batchMaxSize) {
+            throw new StarGraphException("Batch of " + queries.size() + " queries, at most " + batchMaxSize + " allowed.");
+        }
+
+        final Map<String, Scores> lookups = new ConcurrentHashMap<>();
+        List<Callable<QueryResponse>> tasks = new ArrayList<>(queries.size());
+
+        for (int i = 0; i < queries.size(); i++) {
+            String query = queries.get(i);
+            ModifiableGraphSearchParams queryParams = ModifiableGraphSearchParams.create()
+                    .timeout(params.getTimeout()).maxRows(params.getMaxRows())
+                    .queryId(params.getQueryId() != null ? params.getQueryId() + "/" + i : null);
+            tasks.add(QueryTrace.wrap(() -> inBatch(lookups, () -> query(query, queryParams))));
+        }
+
+        return new Batch(batchExecutor, tasks, batchThreads);
+    }
+
+    /**
+     * Stops the threads answering pivot candidates and batches, queries still running on them are interrupted.
+     */
+    public void close() {
+        pivotExecutor.shutdownNow();
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * Cancels a running query started with a query id, see {@link ModifiableGraphSearchParams#queryId(String)}.
+     */
+    public boolean cancel(String queryId) {
+        return graphSearcher.cancel(queryId);
+    }
+
+    private boolean isGraphQuery(String userQuery) {
+        try {
+            Query query = graphSearcher.parse(userQuery);
+            return query.isConstructType() || query.isDescribeType();
+        }
+        catch (RuntimeException e) {
+            // Reported when answering it.
+            return false;
         }
-        return new NoResponse(SPARQL, userQuery);
     }
 
-    private QueryResponse nliQuery(String userQuery, Language language) {
+    private QueryResponse sparqlQuery(String userQuery, ModifiableGraphSearchParams params) {
+        Query query = graphSearcher.parse(userQuery);
+
+        if (query.isAskType()) {
+            return new SPARQLAskResponse(SPARQL, userQuery, graphSearcher.ask(query, params));
+        }
+
+        if (query.isConstructType() || query.isDescribeType()) {
+            // Runs only when the triples are consumed, see SPARQLGraphResponse.
+            return new SPARQLGraphResponse(SPARQL, userQuery, graphSearcher, query, params);
+        }
+
+        SelectResult vars = graphSearcher.select(query, params);
+        QueryResponse response = vars.isEmpty() ?
+                new NoResponse(SPARQL, userQuery) : new SPARQLSelectResponse(SPARQL, userQuery, vars);
+        response.setTruncated(vars.isTruncated());
+        return response;
+    }
+
+    private QueryResponse nliQuery(String userQuery, Language language, ModifiableGraphSearchParams params) {
         QuestionAnalyzer analyzer = this.analyzers.getQuestionAnalyzer(language);
-        QuestionAnalysis analysis = analyzer.analyse(userQuery);
+        QuestionAnalysis analysis;
+        try (Span ignored = QueryTrace.span("analysis", null)) {
+            analysis = analyzer.analyse(userQuery);
+        }
         SPARQLQueryBuilder queryBuilder = analysis.getSPARQLQueryBuilder();
         queryBuilder.setNS(namespace);
 
-        QueryPlanPatterns triplePatterns = queryBuilder.getTriplePatterns();
         List<DataModelBinding> bindings = queryBuilder.getBindings();
+        List<Triple> triples = queryBuilder.getTriplePatterns().stream()
+                .map(triplePattern -> asTriple(triplePattern, bindings)).collect(Collectors.toList());
+
+        Map<String, List<InstanceEntity>> mentioned = findMentions(userQuery);
+        DataModelBinding pivotBinding = findPivotBinding(triples);
+        for (DataModelBinding binding : bindings) {
+            // Other instances only skip the search when their label is unambiguous.
+            if (binding.getModelType() == DataModelType.INSTANCE && !binding.equals(pivotBinding)) {
+                List<InstanceEntity> entities = mentioned.get(Gazetteer.normalize(binding.getTerm()));
+                if (entities != null && entities.size() == 1) {
+                    queryBuilder.add(binding, Collections.singletonList(new Score(entities.get(0), 1)));
+                }
+            }
+        }
+
+        if (pivotBinding != null) {
+            List<Score> pivots = exactPivots(pivotBinding, mentioned);
+            if (pivots.isEmpty() && pivotCandidates > 1) {
+                pivots = searchPivots(pivotBinding);
+            }
+            if (pivots.size() > 1) {
+                return speculate(userQuery, queryBuilder, triples, pivotBinding, pivots, params);
+            }
+            if (!pivots.isEmpty()) {
+                queryBuilder.add(pivotBinding, pivots);
+            }
+        }
+
+        return answer(userQuery, queryBuilder, triples, params);
+    }
 
-        triplePatterns.forEach(triplePattern -> {
-            logger.debug(marker, "Resolving {}", triplePattern);
-            resolve(asTriple(triplePattern, bindings), queryBuilder);
+    /**
+     * Answers the question once for each pivot candidate concurrently.
+     * The answer is the one of the best scored candidate that has any, the others are cancelled then.
+     */
+    private QueryResponse speculate(String userQuery, SPARQLQueryBuilder queryBuilder, List<Triple> triples,
+                                    DataModelBinding pivotBinding, List<Score> pivots, ModifiableGraphSearchParams params) {
+
+        final String baseId = params.getQueryId() != null ? params.getQueryId() : UUID.randomUUID().toString();
+        final Map<String, Scores> lookups = batchLookups.get();
+        List<Callable<QueryResponse>> candidates = new ArrayList<>(pivots.size());
+        List<String> queryIds = new ArrayList<>(pivots.size());
+
+        for (int i = 0; i < pivots.size(); i++) {
+            SPARQLQueryBuilder candidateBuilder = queryBuilder.copy();
+            candidateBuilder.add(pivotBinding, Collections.singletonList(pivots.get(i)));
+            String queryId = baseId + "/" + i;
+            ModifiableGraphSearchParams candidateParams = ModifiableGraphSearchParams.create()
+                    .timeout(params.getTimeout()).maxRows(params.getMaxRows()).queryId(queryId);
+            queryIds.add(queryId);
+            candidates.add(QueryTrace.wrap(
+                    () -> inBatch(lookups, () -> answer(userQuery, candidateBuilder, triples, candidateParams))));
+        }
+
+        Speculation<QueryResponse> speculation = new Speculation<>(pivotExecutor, this::hasAnswer);
+        QueryResponse response = speculation.run(candidates, i -> graphSearcher.cancel(queryIds.get(i)));
+        if (speculation.getWinner() >= 0) {
+            logger.info(marker, "Answered with pivot candidate #{} {}", speculation.getWinner(), pivots.get(speculation.getWinner()));
+        }
+
+        return response != null ? response : new NoResponse(NLI, userQuery);
+    }
+
+    private boolean hasAnswer(QueryResponse response) {
+        if (!(response instanceof AnswerSetResponse)) {
+            return false;
+        }
+        AnswerSetResponse answerSet = (AnswerSetResponse) response;
+        // A negative ASK may just come from the wrong pivot.
+        return answerSet.getQueryType() != QueryType.ASK
+                || answerSet.getShortAnswer().stream().anyMatch(e -> "true".equals(e.getValue()));
+    }
+
+    private QueryResponse answer(String userQuery, SPARQLQueryBuilder queryBuilder,
+                                 List<Triple> triples, ModifiableGraphSearchParams params) {
+        triples.forEach(triple -> {
+            logger.debug(marker, "Resolving {}", triple);
+            resolve(triple, queryBuilder);
         });
 
-        String sparqlQueryStr = queryBuilder.build();
+        Query sparqlQuery;
+        try (Span ignored = QueryTrace.span("sparql-build", null)) {
+            sparqlQuery = queryBuilder.buildQuery();
+        }
 
-        Map<String, List<LabeledEntity>> vars = graphSearcher.select(sparqlQueryStr);
+        AnswerSetResponse answerSet = new AnswerSetResponse(NLI, userQuery, queryBuilder);
+        answerSet.setMappings(queryBuilder.getMappings());
+        answerSet.setSPARQLQuery(sparqlQuery.serialize());
 
-        if (!vars.isEmpty()) {
-            AnswerSetResponse answerSet = new AnswerSetResponse(NLI, userQuery, queryBuilder);
+        if (sparqlQuery.isAskType()) {
+            boolean answer = graphSearcher.ask(sparqlQuery, params);
+            answerSet.setShortAnswer(Collections.singletonList(
+                    new ValueEntity(String.valueOf(answer), XSDDatatype.XSDboolean.getURI(), null)));
+            return answerSet;
+        }
+
+        SelectResult vars = graphSearcher.select(sparqlQuery, params);
 
-            Set<LabeledEntity> expanded = vars.get("VAR_1").stream()
+        if (!vars.isEmpty()) {
+            // convention, answer must be bound to the first var (the count for aggregates)
+            String answerVar = sparqlQuery.getResultVars().get(0);
+            Set<LabeledEntity> expanded = vars.getOrDefault(answerVar, Collections.emptyList()).stream()
                     .map(e -> namespace.expand(e)).collect(Collectors.toSet());
 
-            answerSet.setShortAnswer(new ArrayList<>(expanded)); // convention, answer must be bound to the first var
-            answerSet.setMappings(queryBuilder.getMappings());
-            answerSet.setSPARQLQuery(sparqlQueryStr);
+            answerSet.setShortAnswer(new ArrayList<>(expanded));
+            answerSet.setTruncated(vars.isTruncated());
             return answerSet;
         }
 
-        return new NoResponse(NLI, userQuery);
+        NoResponse noResponse = new NoResponse(NLI, userQuery);
+        noResponse.setTruncated(vars.isTruncated());
+        return noResponse;
     }
 
     private void resolve(Triple triple, SPARQLQueryBuilder builder) {
@@ -160,10 +400,13 @@ public final class QueryEngine {
 
     private void resolveClass(DataModelBinding binding, SPARQLQueryBuilder builder) {
         if (binding.getModelType() == DataModelType.CLASS) {
-            EntitySearcher searcher = core.createEntitySearcher();
             ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).term(binding.getTerm());
             ModifiableRankParams rankParams = ParamsBuilder.word2vec();
-            Scores scores = searcher.classSearch(searchParams, rankParams);
+            Scores scores;
+            try (Span ignored = QueryTrace.span("search", "class '" + binding.getTerm() + "'")) {
+                scores = lookup("class " + binding.getTerm(),
+                        () -> entitySearcher.classSearch(searchParams, rankParams));
+            }
             builder.add(binding, scores.stream().limit(3).collect(Collectors.toList()));
         }
     }
@@ -172,11 +415,14 @@ public final class QueryEngine {
         if ((binding.getModelType() == DataModelType.CLASS
                 || binding.getModelType() == DataModelType.PROPERTY) && !builder.isResolved(binding)) {
 
-            EntitySearcher searcher = core.createEntitySearcher();
             ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).term(binding.getTerm());
-            ModifiableRankParams rankParams = ParamsBuilder.word2vec();
-            Scores scores = searcher.pivotedSearch(pivot, searchParams, rankParams);
-            builder.add(binding, scores.stream().limit(6).collect(Collectors.toList()));
+            ModifiableLTRParams rankParams = ltrParams("predicate").embedding(ParamsBuilder.word2vec());
+            Scores scores;
+            try (Span ignored = QueryTrace.span("search", "pivoted '" + binding.getTerm() + "'")) {
+                scores = lookup("pivoted " + pivot.getId() + " " + binding.getTerm(),
+                        () -> entitySearcher.pivotedSearch(pivot, searchParams, rankParams));
+            }
+            builder.add(binding, scores);
         }
     }
 
@@ -187,10 +433,13 @@ public final class QueryEngine {
         }
 
         if (binding.getModelType() == DataModelType.INSTANCE) {
-            EntitySearcher searcher = core.createEntitySearcher();
             ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).term(binding.getTerm());
-            ModifiableRankParams rankParams = ParamsBuilder.levenshtein(); // threshold defaults to auto
-            Scores scores = searcher.instanceSearch(searchParams, rankParams);
+            ModifiableRankParams rankParams = ltrParams("instance"); // threshold defaults to auto
+            Scores scores;
+            try (Span ignored = QueryTrace.span("search", "instance '" + binding.getTerm() + "'")) {
+                scores = lookup("instance " + binding.getTerm(),
+                        () -> entitySearcher.instanceSearch(searchParams, rankParams));
+            }
             InstanceEntity instance = (InstanceEntity) scores.get(0).getEntry();
             builder.add(binding, Collections.singletonList(scores.get(0)));
             return instance;
@@ -198,6 +447,93 @@ public final class QueryEngine {
         return null;
     }
 
+    /**
+     * The instance the first triple is anchored to, see {@link #resolve(Triple, SPARQLQueryBuilder)}.
+     */
+    private DataModelBinding findPivotBinding(List<Triple> triples) {
+        for (Triple triple : triples) {
+            if (triple.p.getModelType() != DataModelType.TYPE) {
+                if (triple.s.getModelType() == DataModelType.INSTANCE) {
+                    return triple.s;
+                }
+                if (triple.o.getModelType() == DataModelType.INSTANCE) {
+                    return triple.o;
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Entities whose label is mentioned in the question, by normalized label.
+     */
+    private Map<String, List<InstanceEntity>> findMentions(String userQuery) {
+        try (Span ignored = QueryTrace.span("gazetteer", null)) {
+            Map<String, List<InstanceEntity>> mentioned = new HashMap<>();
+            core.getGazetteer(dbId).find(userQuery).forEach(m -> mentioned.put(m.getLabel(), m.getEntities()));
+            return mentioned;
+        }
+    }
+
+    /**
+     * The instance named exactly as the pivot term. A label shared by several entities is left to the entity
+     * search, their order in the gazetteer is only that of the graph while the ranking weighs popularity.
+     */
+    private List<Score> exactPivots(DataModelBinding binding, Map<String, List<InstanceEntity>> mentioned) {
+        List<InstanceEntity> entities = mentioned.getOrDefault(Gazetteer.normalize(binding.getTerm()), Collections.emptyList());
+        if (entities.size() != 1) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new Score(entities.get(0), 1));
+    }
+
+    private List<Score> searchPivots(DataModelBinding binding) {
+        ModifiableSearchParams searchParams = ModifiableSearchParams.create(dbId).term(binding.getTerm());
+        ModifiableRankParams rankParams = ltrParams("instance").limit(pivotCandidates);
+        try (Span ignored = QueryTrace.span("search", "pivots '" + binding.getTerm() + "'")) {
+            return lookup("pivots " + binding.getTerm(),
+                    () -> entitySearcher.instanceSearch(searchParams, rankParams));
+        }
+    }
+
+    /**
+     * Entity searches are shared by all queries of a batch, see {@link #queryAll(List, ModifiableGraphSearchParams)}.
+     */
+    private Scores lookup(String key, Supplier<Scores> search) {
+        Map<String, Scores> lookups = batchLookups.get();
+        return lookups != null ? lookups.computeIfAbsent(key, k -> search.get()) : search.get();
+    }
+
+    private <T> T inBatch(Map<String, Scores> lookups, Supplier<T> task) {
+        if (lookups == null) {
+            return task.get();
+        }
+        // The first pivot candidate runs on the thread already in the batch.
+        Map<String, Scores> previous = batchLookups.get();
+        batchLookups.set(lookups);
+        try {
+            return task.get();
+        }
+        finally {
+            if (previous != null) {
+                batchLookups.set(previous);
+            } else {
+                batchLookups.remove();
+            }
+        }
+    }
+
+    private ModifiableLTRParams ltrParams(String name) {
+        Config config = core.getConfig().getConfig("ranking.ltr." + name);
+        ModifiableLTRParams params = ParamsBuilder.ltr().bias((float) config.getDouble("bias"));
+        for (LTRFeature feature : LTRFeature.values()) {
+            params.weight(feature, (float) config.getDouble("weights." + feature.configName()));
+        }
+        params.limit(config.getInt("limit"));
+        return params;
+    }
+
     private Triple asTriple(TriplePattern pattern, List<DataModelBinding> bindings) {
         String[] components = pattern.getPattern().split("\\s");
         return new Triple(map(components[0], bindings), map(components[1], bindings), map(components[2], bindings));
@@ -33,6 +33,7 @@ import java.util.Objects;
 public abstract class QueryResponse {
     private String userQuery;
     private InteractionMode interactionMode;
+    private boolean truncated;
 
     public QueryResponse(InteractionMode interactionMode, String userQuery) {
         this.interactionMode = Objects.requireNonNull(interactionMode);
@@ -46,4 +47,15 @@ public abstract class QueryResponse {
     public String getUserQuery() {
         return userQuery;
     }
+
+    /**
+     * True when the graph search was stopped by a timeout, row limit or cancellation.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
 }
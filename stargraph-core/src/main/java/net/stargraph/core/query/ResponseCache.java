@@ -0,0 +1,113 @@
+package net.stargraph.core.query;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.typesafe.config.Config;
+import net.stargraph.StarGraphException;
+import net.stargraph.core.graph.ModifiableGraphSearchParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Answers of a KB keyed by the normalized query text, bounded in size and time.
+ * <p>
+ * Concurrent misses of the same query wait for the single computation in progress.
+ * Truncated answers are not kept. Lazily evaluated graphs must not be cached at all, they belong to a single caller.
+ */
+public final class ResponseCache {
+    private static final Pattern spacePattern = Pattern.compile("\\s+");
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Marker marker = MarkerFactory.getMarker("query");
+    private String dbId;
+    private Cache<String, QueryResponse> cache;
+
+    public ResponseCache(String dbId, Config config) {
+        this.dbId = Objects.requireNonNull(dbId);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(config.getLong("max-size"))
+                .expireAfterWrite(config.getDuration("ttl", TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Natural language questions, keyed with their whitespace collapsed.
+     */
+    public QueryResponse get(String question, ModifiableGraphSearchParams params, Supplier<QueryResponse> supplier) {
+        return getNormalized(normalize(question), params, supplier);
+    }
+
+    /**
+     * Queries already normalized by the caller, e.g. SPARQL whose literals must keep their whitespace.
+     */
+    public QueryResponse getNormalized(String query, ModifiableGraphSearchParams params, Supplier<QueryResponse> supplier) {
+        // Row limits change the answer, timeouts only whether it is complete.
+        final String key = params.getMaxRows() + " " + query;
+
+        try {
+            QueryResponse response = cache.get(key, supplier::get);
+            if (response.isTruncated()) {
+                cache.invalidate(key);
+            }
+            return response;
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StarGraphException) {
+                throw (StarGraphException) cause;
+            }
+            throw new StarGraphException("Query Error", cause);
+        }
+    }
+
+    public static String normalize(String text) {
+        return spacePattern.matcher(text.trim()).replaceAll(" ");
+    }
+
+    public void invalidateAll() {
+        logger.info(marker, "Dropping {} cached answers of '{}'", cache.size(), dbId);
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+}
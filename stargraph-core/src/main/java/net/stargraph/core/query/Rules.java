@@ -46,16 +46,29 @@ public final class Rules {
     private Marker marker = MarkerFactory.getMarker("query");
 
     private Map<Language, List<DataModelTypePattern>> dataModelTypePatterns;
+    private Map<Language, RuleIndex> dataModelTypeIndexes;
     private Map<Language, List<QueryPlanPatterns>> queryPlanPatterns;
     private Map<Language, List<Pattern>> stopPatterns;
+    private Map<Language, StopPatternMatcher> stopPatternMatchers;
     private Map<Language, List<QueryTypePatterns>> queryTypePatterns;
+    private Map<Language, QueryTypeMatcher> queryTypeMatchers;
 
     public Rules(Config config) {
         logger.info(marker, "Loading Rules.");
         this.dataModelTypePatterns = loadDataModelTypePatterns(Objects.requireNonNull(config));
+        this.dataModelTypeIndexes = new HashMap<>();
+        this.dataModelTypePatterns.forEach((lang, rules) -> dataModelTypeIndexes.put(lang, new RuleIndex(rules)));
         this.queryPlanPatterns = loadQueryPlanPatterns(Objects.requireNonNull(config));
         this.stopPatterns = loadStopPatterns(config);
+        this.stopPatternMatchers = new HashMap<>();
+        this.stopPatterns.forEach((lang, patterns) -> stopPatternMatchers.put(lang, new StopPatternMatcher(patterns)));
         this.queryTypePatterns = loadQueryTypePatterns(config);
+        this.queryTypeMatchers = new LinkedHashMap<>();
+        this.queryTypePatterns.forEach((lang, patterns) -> queryTypeMatchers.put(lang, new QueryTypeMatcher(patterns)));
+    }
+
+    public Set<Language> getLanguages() {
+        return Collections.unmodifiableSet(dataModelTypePatterns.keySet());
     }
 
     public List<DataModelTypePattern> getDataModelTypeRules(Language language) {
@@ -65,6 +78,13 @@ public final class Rules {
         throw new UnsupportedLanguageException(language);
     }
 
+    public RuleIndex getDataModelTypeIndex(Language language) {
+        if (dataModelTypeIndexes.containsKey(language)) {
+            return dataModelTypeIndexes.get(language);
+        }
+        throw new UnsupportedLanguageException(language);
+    }
+
     public List<QueryPlanPatterns> getQueryPlanRules(Language language) {
         if (queryPlanPatterns.containsKey(language)) {
             return queryPlanPatterns.get(language);
@@ -79,6 +99,13 @@ public final class Rules {
         throw new UnsupportedLanguageException(language);
     }
 
+    public StopPatternMatcher getStopPatternMatcher(Language language) {
+        if (stopPatternMatchers.containsKey(language)) {
+            return stopPatternMatchers.get(language);
+        }
+        throw new UnsupportedLanguageException(language);
+    }
+
     public List<QueryTypePatterns> getQueryTypeRules(Language language) {
         if (queryTypePatterns.containsKey(language)) {
             return queryTypePatterns.get(language);
@@ -86,6 +113,17 @@ public final class Rules {
         throw new UnsupportedLanguageException(language);
     }
 
+    public QueryTypeMatcher getQueryTypeMatcher(Language language) {
+        if (queryTypeMatchers.containsKey(language)) {
+            return queryTypeMatchers.get(language);
+        }
+        throw new UnsupportedLanguageException(language);
+    }
+
+    public Map<Language, QueryTypeMatcher> getQueryTypeMatchers() {
+        return Collections.unmodifiableMap(queryTypeMatchers);
+    }
+
     private Map<Language, List<DataModelTypePattern>> loadDataModelTypePatterns(Config config) {
         Map<Language, List<DataModelTypePattern>> rulesByLang = new HashMap<>();
         ConfigObject configObject = config.getObject("rules.syntatic-pattern");
@@ -32,12 +32,34 @@ import net.stargraph.core.query.nli.DataModelBinding;
 import net.stargraph.core.query.nli.QueryPlanPatterns;
 import net.stargraph.rank.Score;
 import net.stargraph.rank.Scores;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpAsQuery;
+import org.apache.jena.sparql.algebra.Table;
+import org.apache.jena.sparql.algebra.TableFactory;
+import org.apache.jena.sparql.algebra.op.OpBGP;
+import org.apache.jena.sparql.algebra.op.OpJoin;
+import org.apache.jena.sparql.algebra.op.OpProject;
+import org.apache.jena.sparql.algebra.op.OpTable;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.expr.ExprVar;
+import org.apache.jena.sparql.expr.aggregate.AggCount;
+import org.apache.jena.sparql.expr.aggregate.AggCountVarDistinct;
+import org.apache.jena.sparql.expr.aggregate.Aggregator;
+import org.apache.jena.vocabulary.RDF;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public final class SPARQLQueryBuilder {
+    static final String COUNT_VAR = "COUNT";
+
     private QueryType queryType;
     private QueryPlanPatterns triplePatterns;
     private List<DataModelBinding> bindings;
@@ -51,6 +73,16 @@ public final class SPARQLQueryBuilder {
         this.mappings = new ConcurrentHashMap<>();
     }
 
+    /**
+     * Independent copy, the mappings can be changed without affecting this builder.
+     */
+    SPARQLQueryBuilder copy() {
+        SPARQLQueryBuilder copy = new SPARQLQueryBuilder(queryType, triplePatterns, bindings);
+        copy.namespace = namespace;
+        mappings.forEach((binding, scores) -> copy.mappings.put(binding, new Scores(scores)));
+        return copy;
+    }
+
     @Override
     public String toString() {
         return build();
@@ -75,7 +107,7 @@ public final class SPARQLQueryBuilder {
         return bindings;
     }
 
-    void setNS(Namespace ns) {
+    public void setNS(Namespace ns) {
         this.namespace = Objects.requireNonNull(ns);
     }
 
@@ -94,70 +126,121 @@ public final class SPARQLQueryBuilder {
         return mappings;
     }
 
-    void add(DataModelBinding binding, List<Score> scores) {
+    public void add(DataModelBinding binding, List<Score> scores) {
         final Scores newScores = new Scores(scores.size());
         // Expanding the Namespace for all entities
         scores.forEach(s -> newScores.add(new Score(namespace.expand(s.getEntry()), s.getValue())));
         mappings.computeIfAbsent(binding, (b) -> new Scores()).addAll(newScores);
     }
 
+    /**
+     * Textual form of {@link #buildQuery()}, as shown to the user.
+     */
     String build() {
+        return buildQuery().serialize();
+    }
+
+    /**
+     * Builds the query straight from the algebra, no SPARQL text is parsed.
+     */
+    public Query buildQuery() {
         switch (queryType) {
             case SELECT:
-                return String.format("SELECT * WHERE {\n%s\n}", buildStatements());
+                Query select = OpAsQuery.asQuery(new OpProject(buildOp(), getVars()));
+                select.setQuerySelectType();
+                return select;
             case ASK:
-                return String.format("ASK {\n%s\n}", buildStatements());
+                Query ask = OpAsQuery.asQuery(buildOp());
+                ask.setQueryAskType();
+                return ask;
             case AGGREGATE:
-                throw new StarGraphException("TBD");
+                return buildAggregate();
         }
 
         throw new StarGraphException("Unexpected: " + queryType);
     }
 
-    private String buildStatements() {
-        StringJoiner tripleJoiner = new StringJoiner(" . \n", "{", "}");
+    /**
+     * Counts the distinct answers, i.e. the values of the first variable.
+     */
+    private Query buildAggregate() {
+        Query aggregate = new Query();
+        aggregate.setQuerySelectType();
+        aggregate.setQueryPattern(OpAsQuery.asQuery(buildOp()).getQueryPattern());
+
+        List<Var> vars = getVars();
+        Aggregator count = vars.isEmpty() ? new AggCount() : new AggCountVarDistinct(new ExprVar(vars.get(0)));
+        aggregate.addResultVar(Var.alloc(COUNT_VAR), aggregate.allocAggregate(count));
+        return aggregate;
+    }
 
-        triplePatterns.forEach(triplePattern -> {
+    /**
+     * Each triple pattern becomes a single triple. Components with several candidates are bound
+     * to a fresh variable whose alternatives come in a table (VALUES), instead of the cartesian UNION of all of them.
+     */
+    private Op buildOp() {
+        Op op = null;
+        int candidateVars = 0;
 
+        for (TriplePattern triplePattern : triplePatterns) {
             String[] components = triplePattern.getPattern().split("\\s");
-            List<String> sURIs = placeHolder2URIs(components[0]);
-            List<String> pURIs = placeHolder2URIs(components[1]);
-            List<String> oURIs = placeHolder2URIs(components[2]);
-
-            List<String> prod = cartesianProduct(cartesianProduct(sURIs, pURIs), oURIs);
-
-            StringJoiner stmtJoiner = new StringJoiner("} UNION \n{");
-            prod.forEach(p -> stmtJoiner.add(p.trim()));
-
-            tripleJoiner.add(stmtJoiner.toString());
-        });
+            Node[] nodes = new Node[3];
+            Op patternOp = null;
+
+            for (int i = 0; i < components.length; i++) {
+                List<Node> candidates = placeHolder2Nodes(components[i]);
+                if (candidates.size() == 1) {
+                    nodes[i] = candidates.get(0);
+                } else {
+                    Var var = Var.alloc("CANDIDATE_" + ++candidateVars);
+                    Table table = TableFactory.create(Collections.singletonList(var));
+                    candidates.forEach(c -> table.addBinding(BindingFactory.binding(var, c)));
+                    nodes[i] = var;
+                    patternOp = OpJoin.create(patternOp, OpTable.create(table));
+                }
+            }
+
+            BasicPattern bgp = new BasicPattern();
+            bgp.add(new Triple(nodes[0], nodes[1], nodes[2]));
+            patternOp = OpJoin.create(patternOp, new OpBGP(bgp));
+
+            op = OpJoin.create(op, patternOp);
+        }
 
-        return tripleJoiner.toString();
+        return op;
     }
 
-    private List<String> cartesianProduct(List<String> x, List<String> y) {
-        List<String> xy = new ArrayList<>();
-        x.forEach(s1 -> y.forEach(s2 -> xy.add(s1.trim() + " " + s2.trim())));
-        return xy;
+    private List<Var> getVars() {
+        Set<Var> vars = new LinkedHashSet<>();
+        triplePatterns.forEach(triplePattern -> {
+            for (String component : triplePattern.getPattern().split("\\s")) {
+                if (isVar(component)) {
+                    vars.add(Var.alloc(component.substring(1)));
+                }
+            }
+        });
+        return new ArrayList<>(vars);
     }
 
-    private List<String> placeHolder2URIs(String placeHolder) {
+    private List<Node> placeHolder2Nodes(String placeHolder) {
         if (isVar(placeHolder)) {
-            return Collections.singletonList(placeHolder);
+            return Collections.singletonList(Var.alloc(placeHolder.substring(1)));
         }
 
         if (isType(placeHolder)) {
-            return Collections.singletonList("a");
+            return Collections.singletonList(RDF.type.asNode());
         }
 
         DataModelBinding binding = getBinding(placeHolder);
         List<Score> mappings = getMappings(binding);
         if (mappings.isEmpty()) {
-            return Collections.singletonList(getURI(binding));
+            return Collections.singletonList(NodeFactory.createURI(getURI(binding)));
         }
         return mappings.stream()
                 .map(Score::getRankableView)
-                .map(r -> String.format("<%s>", unmap(r.getId()))).collect(Collectors.toList());
+                .map(r -> NodeFactory.createURI(unmap(r.getId())))
+                .distinct()
+                .collect(Collectors.toList());
     }
 
     private boolean isVar(String s) {
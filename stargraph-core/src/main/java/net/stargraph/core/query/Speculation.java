@@ -0,0 +1,134 @@
+package net.stargraph.core.query;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.StarGraphException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs alternative ways of answering the same query at once, keeping the first in order that has an answer.
+ * <p>
+ * The first candidate runs on the calling thread, the others on the executor. A candidate the executor refuses
+ * runs on the calling thread when its turn comes, so a busy executor only makes it sequential.
+ */
+public final class Speculation<T> {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Marker marker = MarkerFactory.getMarker("query");
+    private Executor executor;
+    private Predicate<T> hasAnswer;
+    private int winner;
+
+    public Speculation(Executor executor, Predicate<T> hasAnswer) {
+        this.executor = Objects.requireNonNull(executor);
+        this.hasAnswer = Objects.requireNonNull(hasAnswer);
+        this.winner = -1;
+    }
+
+    /**
+     * @param candidates from the most to the least promising.
+     * @param onCancel   told the position of each candidate stopped once the answer is known.
+     * @return the result of the first candidate having an answer, otherwise of the first that did not fail,
+     * null if all failed.
+     */
+    public T run(List<Callable<T>> candidates, IntConsumer onCancel) {
+        List<FutureTask<T>> tasks = new ArrayList<>(candidates.size());
+        List<Boolean> offloaded = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            FutureTask<T> task = new FutureTask<>(candidates.get(i));
+            tasks.add(task);
+            offloaded.add(i > 0 && offload(task));
+        }
+
+        T fallback = null;
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                if (!offloaded.get(i)) {
+                    tasks.get(i).run();
+                }
+
+                T result;
+                try {
+                    result = tasks.get(i).get();
+                }
+                catch (ExecutionException e) {
+                    logger.warn(marker, "Candidate #{} failed", i, e.getCause());
+                    continue;
+                }
+
+                if (hasAnswer.test(result)) {
+                    winner = i;
+                    return result;
+                }
+                fallback = fallback == null ? result : fallback;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StarGraphException("Interrupted", e);
+        }
+        finally {
+            for (int i = 0; i < tasks.size(); i++) {
+                if (tasks.get(i).cancel(true)) {
+                    onCancel.accept(i);
+                }
+            }
+        }
+
+        return fallback;
+    }
+
+    /**
+     * @return the position of the candidate having the answer, -1 when none had.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    private boolean offload(FutureTask<T> task) {
+        try {
+            executor.execute(task);
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
@@ -42,6 +42,18 @@ public abstract class Annotator {
 
     protected abstract List<Word> doRun(Language language, String sentence);
 
+    /**
+     * Loads the models of the language, the default is to load them on first use.
+     */
+    protected void doLoad(Language language) {
+        // nothing to do
+    }
+
+    public final void load(Language language) {
+        logger.info(marker, "Loading models for '{}'", language);
+        doLoad(language);
+    }
+
     public final List<Word> run(Language language, String sentence) {
         logger.debug(marker, "Annotating '{}', language: '{}'", sentence, language);
         try {
@@ -0,0 +1,93 @@
+package net.stargraph.core.query.annotator;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.typesafe.config.Config;
+import net.stargraph.StarGraphException;
+import net.stargraph.query.Language;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the annotations of the latest questions, tagging is deterministic for a given language and sentence.
+ * The cached lists are shared, thus unmodifiable.
+ */
+public final class CachedAnnotator extends Annotator {
+    private static final Pattern spaces = Pattern.compile("\\s+");
+
+    private Annotator annotator;
+    private Cache<String, List<Word>> cache;
+
+    public CachedAnnotator(Annotator annotator, Config config) {
+        this.annotator = Objects.requireNonNull(annotator);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Objects.requireNonNull(config).getLong("max-size"))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    protected void doLoad(Language language) {
+        annotator.load(language);
+    }
+
+    @Override
+    protected List<Word> doRun(Language language, String sentence) {
+        final String key = language.name() + " " + spaces.matcher(sentence.trim()).replaceAll(" ");
+        try {
+            return cache.get(key, () -> Collections.unmodifiableList(annotator.run(language, sentence)));
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StarGraphException) {
+                throw (StarGraphException) cause;
+            }
+            throw new StarGraphException("Annotation Error", cause);
+        }
+    }
+
+    public Annotator getAnnotator() {
+        return annotator;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+}
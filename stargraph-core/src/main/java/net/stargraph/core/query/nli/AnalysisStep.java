@@ -38,22 +38,31 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * State of the question analysis as aligned tokens: the words, their POS tags and the span of annotated words
+ * each token stands for. Resolving a rule rewrites the matched span of both at once with a placeholder.
+ * <p>
+ * The rules are regular expressions over the joined words or tags, which are built once per step.
+ */
 public final class AnalysisStep {
     private static final Pattern punctPattern = Pattern.compile("[(){},.;!?<>%]");
+    private static final Pattern spacePattern = Pattern.compile("\\s");
 
     private Logger logger = LoggerFactory.getLogger(getClass());
     private Marker marker = MarkerFactory.getMarker("nli");
 
     private List<Word> annotated;
+    private Tokens tokens;
     private String questionStr;
     private String posTagStr;
     private List<DataModelBinding> dataModelBindings;
 
-    private AnalysisStep(List<DataModelBinding> dataModelBindings, List<Word> annotated, String questionStr, String posTagStr) {
+    private AnalysisStep(List<DataModelBinding> dataModelBindings, List<Word> annotated, Tokens tokens) {
         this.dataModelBindings = Objects.requireNonNull(dataModelBindings);
         this.annotated = Objects.requireNonNull(annotated);
-        this.questionStr = Objects.requireNonNull(questionStr);
-        this.posTagStr = Objects.requireNonNull(posTagStr);
+        this.tokens = Objects.requireNonNull(tokens);
+        this.questionStr = String.join(" ", tokens.words);
+        this.posTagStr = String.join(" ", tokens.tags);
 
         if (annotated.isEmpty() || questionStr.isEmpty() || posTagStr.isEmpty()) {
             throw new IllegalArgumentException();
@@ -63,162 +72,139 @@ public final class AnalysisStep {
     }
 
     public AnalysisStep(List<Word> annotated) {
-        this(Collections.emptyList(), Objects.requireNonNull(annotated),
-                annotated.stream().map(Word::getText).collect(Collectors.joining(" ")),
-                annotated.stream().map(w -> w.getPosTag().getTag()).collect(Collectors.joining(" ")));
+        this(Collections.emptyList(), Objects.requireNonNull(annotated), Tokens.of(annotated));
     }
 
     public List<DataModelBinding> getBindings() {
-        return Arrays.stream(questionStr.split("\\s"))
+        return Arrays.stream(tokens.words)
                 .map(this::getBinding)
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .collect(Collectors.toList());
     }
 
-    AnalysisStep clean(List<Pattern> stopPatterns) {
+    AnalysisStep clean(StopPatternMatcher stopPatterns) {
+        Tokens cleaned = tokens;
+        String cleanedStr = questionStr;
 
-        stopPatterns.forEach(pattern -> {
-            Matcher matcher = pattern.matcher(questionStr);
+        for (int i = stopPatterns.next(cleanedStr, 0); i >= 0; i = stopPatterns.next(cleanedStr, i + 1)) {
+            Pattern pattern = stopPatterns.getPatterns().get(i);
+            // Removed words leave an empty token, as the spaces left behind are seen by the next patterns.
+            Tokens trimmed = cleaned.trim();
+            Matcher matcher = pattern.matcher(String.join(" ", trimmed.words));
             if (matcher.matches()) {
-                questionStr = replace(pattern, questionStr, "").value;
+                int[] span = findSpan(trimmed.words, matcher);
+                cleaned = span != null ? trimmed.replace(span[0], span[1], "") : trimmed;
+                cleanedStr = String.join(" ", cleaned.words);
             }
-        });
-
-        questionStr = compact(questionStr);
+            else {
+                logger.warn(marker, "Nothing changed: {} on '{}'", pattern, cleanedStr);
+            }
+        }
 
-        return new AnalysisStep(dataModelBindings, annotated, questionStr, posTagStr);
+        return new AnalysisStep(dataModelBindings, annotated, cleaned.compact());
     }
 
     AnalysisStep resolve(DataModelTypePattern rule) {
         final DataModelType modelType = Objects.requireNonNull(rule).getDataModelType();
-        final Pattern rulePattern = Pattern.compile(rule.getPattern());
-
-        final List<DataModelBinding> bindings = new LinkedList<>(dataModelBindings);
-
-        if (matches(rulePattern)) {
-            String newQuestionStr;
-            String newPosTagStr;
-
-            if (rule.isLexical()) {
-                String placeHolder = createPlaceholder(questionStr, modelType);
-                Replacement replacement = replace(rulePattern, questionStr, placeHolder);
-                newQuestionStr = replacement.value;
-
-                String subPosStr = findSubPosStr(replacement);
-                Replacement posTagReplacement = replace(subPosStr, posTagStr, placeHolder);
-                newPosTagStr = posTagReplacement.value;
+        final Pattern rulePattern = rule.getCompiledPattern();
+
+        // Lexical rules are meant for the words and the others for the tags, but a match on either is enough.
+        String[] target = rule.isLexical() ? tokens.words : tokens.tags;
+        Matcher matcher = rulePattern.matcher(rule.isLexical() ? questionStr : posTagStr);
+        if (!matcher.matches()) {
+            target = rule.isLexical() ? tokens.tags : tokens.words;
+            matcher = rulePattern.matcher(rule.isLexical() ? posTagStr : questionStr);
+            if (!matcher.matches()) {
+                return null;
             }
-            else {
-                String placeHolder = createPlaceholder(posTagStr, modelType);
-                Replacement posTagReplacement = replace(rulePattern, posTagStr, placeHolder);
-                newPosTagStr = posTagReplacement.value;
+        }
 
-                String subStr = findSubStr(posTagReplacement);
-                Replacement questionReplacement = replace(subStr, questionStr, placeHolder);
-                newQuestionStr = questionReplacement.value;
+        int[] span = findSpan(target, matcher);
+        if (span == null) {
+            return null;
+        }
 
-                bindings.add(new DataModelBinding(modelType, subStr, placeHolder));
-            }
+        String placeHolder = createPlaceholder(modelType);
+        logger.debug(marker, "{} on '{}' with '{}'", rulePattern, String.join(" ", target), placeHolder);
 
-            return new AnalysisStep(bindings, annotated, newQuestionStr, newPosTagStr);
+        List<DataModelBinding> bindings = dataModelBindings;
+        if (!rule.isLexical()) {
+            bindings = new ArrayList<>(dataModelBindings);
+            bindings.add(new DataModelBinding(modelType, getText(span[0], span[1]), placeHolder));
         }
 
-        return null;
+        return new AnalysisStep(bindings, annotated, tokens.replace(span[0], span[1], placeHolder));
     }
 
     String getAnalyzedQuestionStr() {
         return questionStr;
     }
 
-    private String findSubStr(Replacement replacement) {
-        String[] capture = Objects.requireNonNull(replacement).capture.split("\\s");
-        int startIdx = 0;
-        String subStr = null;
-        for (Word w : annotated) {
-            if (w.getPosTag().getTag().equals(capture[0])) {
-                subStr = annotated.stream()
-                        .skip(startIdx)
-                        .limit(capture.length)
-                        .map(Word::getText).collect(Collectors.joining(" "));
-                break;
-            }
-            startIdx++;
-        }
-
-        return subStr;
+    String getPosTagStr() {
+        return posTagStr;
     }
 
-    private String findSubPosStr(Replacement replacement) {
-        String[] capture = Objects.requireNonNull(replacement).capture.split("\\s");
-        int startIdx = 0;
-        String subPosStr = null;
-        for (Word w : annotated) {
-            if (w.getText().equals(capture[0])) {
-                subPosStr = annotated.stream()
-                        .skip(startIdx)
-                        .limit(capture.length)
-                        .map(word -> word.getPosTag().getTag()).collect(Collectors.joining(" "));
-                break;
-            }
-            startIdx++;
-        }
-
-        return subPosStr;
+    String[] getWords() {
+        return tokens.words;
     }
 
-    private boolean matches(Pattern pattern) {
-        Matcher m1 = pattern.matcher(posTagStr);
-        Matcher m2 = pattern.matcher(questionStr);
-        return m1.matches() || m2.matches();
+    String[] getTags() {
+        return tokens.tags;
     }
 
-    private Replacement replace(String subStr, String target, String replacementStr) {
-        return replace(Pattern.compile(String.format("^.*(%s).*$", Objects.requireNonNull(subStr))), target, replacementStr);
-    }
+    /**
+     * The first run of tokens equal to the captured ones, otherwise the tokens around the capture.
+     */
+    private static int[] findSpan(String[] target, Matcher matcher) {
+        if (matcher.groupCount() < 1) {
+            throw new StarGraphException("Fail to apply pattern '" + matcher.pattern() + "'");
+        }
 
-    private Replacement replace(Pattern pattern, String target, String replacementStr) {
-        try {
-            String str = target.trim();
-            Matcher matcher = pattern.matcher(str);
-            if (matcher.matches()) {
-                logger.debug(marker, "{} on '{}' with '{}'", pattern, str, replacementStr);
-                // As we expect just one capture capture per pattern this will replaceWithModelType the capture by the desired replacement.
-                StringBuffer sb = new StringBuffer();
-                String capturedStr = matcher.group(1);
-                matcher.appendReplacement(sb, matcher.group(0).replaceFirst(Pattern.quote(capturedStr), replacementStr));
-                matcher.appendTail(sb);
-                return new Replacement(sb.toString(), capturedStr);
-            } else {
-                logger.warn(marker, "Nothing changed: {} on '{}' with '{}'", pattern, str, replacementStr);
+        String captured = matcher.group(1).trim();
+        if (captured.isEmpty()) {
+            return null;
+        }
+
+        String[] capturedTokens = spacePattern.split(captured);
+        for (int i = 0; i + capturedTokens.length <= target.length; i++) {
+            int j = 0;
+            while (j < capturedTokens.length && target[i + j].equals(capturedTokens[j])) {
+                j++;
+            }
+            if (j == capturedTokens.length) {
+                return new int[] {i, i + j};
             }
-            return new Replacement(target, null);
         }
-        catch (Exception e) {
-            throw new StarGraphException("Fail to apply pattern '" + pattern + "'");
+
+        int from = -1, to = 0, offset = 0;
+        for (int i = 0; i < target.length; i++) {
+            int end = offset + target[i].length();
+            if (from < 0 && end > matcher.start(1)) {
+                from = i;
+            }
+            if (offset < matcher.end(1)) {
+                to = i + 1;
+            }
+            offset = end + 1;
         }
+        return new int[] {from, to};
+    }
+
+    private String getText(int from, int to) {
+        return annotated.subList(tokens.starts[from], tokens.ends[to - 1]).stream()
+                .map(Word::getText).collect(Collectors.joining(" "));
     }
 
-    private String createPlaceholder(String target, DataModelType modelType) {
+    private String createPlaceholder(DataModelType modelType) {
         int unusedIdx = 1;
         String placeHolder = String.format("%s_%d", modelType.name(), unusedIdx);
-        while (target.contains(placeHolder)) {
-            placeHolder = String.format("%s_%d", modelType.name(), unusedIdx++);
+        while (tokens.contains(placeHolder)) {
+            placeHolder = String.format("%s_%d", modelType.name(), ++unusedIdx);
         }
         return placeHolder;
     }
 
-    private String compact(String str) {
-        if (str == null || str.isEmpty()) {
-            return str;
-        }
-
-        String punctLess = punctPattern.matcher(str).replaceAll(" ");
-
-        return Arrays.stream(punctLess.split("\\s")).map(String::trim)
-                .filter(s -> !s.isEmpty()).collect(Collectors.joining(" "));
-    }
-
     private Optional<DataModelBinding> getBinding(String term) {
         return dataModelBindings.stream().filter(binding -> binding.getPlaceHolder().equals(term)).findFirst();
     }
@@ -231,13 +217,108 @@ public final class AnalysisStep {
                 '}';
     }
 
-    private static class Replacement {
-        final String value;
-        final String capture;
+    /**
+     * Aligned words, tags and spans of annotated words [start, end). Placeholders are both word and tag.
+     */
+    private static final class Tokens {
+        final String[] words;
+        final String[] tags;
+        final int[] starts;
+        final int[] ends;
+
+        Tokens(String[] words, String[] tags, int[] starts, int[] ends) {
+            this.words = words;
+            this.tags = tags;
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        static Tokens of(List<Word> annotated) {
+            final int size = annotated.size();
+            Tokens tokens = new Tokens(new String[size], new String[size], new int[size], new int[size]);
+            for (int i = 0; i < size; i++) {
+                tokens.words[i] = annotated.get(i).getText();
+                tokens.tags[i] = annotated.get(i).getPosTag().getTag();
+                tokens.starts[i] = i;
+                tokens.ends[i] = i + 1;
+            }
+            return tokens;
+        }
+
+        boolean contains(String token) {
+            for (int i = 0; i < words.length; i++) {
+                if (words[i].equals(token) || tags[i].equals(token)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Tokens [from, to) become a single one.
+         */
+        Tokens replace(int from, int to, String replacement) {
+            final int size = words.length - (to - from) + 1;
+            Tokens replaced = new Tokens(new String[size], new String[size], new int[size], new int[size]);
+            copy(0, replaced, 0, from);
+            copy(to, replaced, from + 1, words.length - to);
+            replaced.words[from] = replacement;
+            replaced.tags[from] = replacement;
+            replaced.starts[from] = starts[from];
+            replaced.ends[from] = ends[to - 1];
+            return replaced;
+        }
+
+        /**
+         * Without the empty tokens at both ends.
+         */
+        Tokens trim() {
+            int from = 0, to = words.length;
+            while (from < to && words[from].isEmpty()) {
+                from++;
+            }
+            while (to > from && words[to - 1].isEmpty()) {
+                to--;
+            }
+            if (from == 0 && to == words.length) {
+                return this;
+            }
+            Tokens trimmed = new Tokens(new String[to - from], new String[to - from], new int[to - from], new int[to - from]);
+            copy(from, trimmed, 0, to - from);
+            return trimmed;
+        }
+
+        /**
+         * Splits the words on punctuation and drops the empty ones, pieces keep the tag and span of their word.
+         */
+        Tokens compact() {
+            List<Integer> origin = new ArrayList<>(words.length);
+            List<String> pieces = new ArrayList<>(words.length);
+            for (int i = 0; i < words.length; i++) {
+                for (String piece : spacePattern.split(punctPattern.matcher(words[i]).replaceAll(" "))) {
+                    if (!piece.isEmpty()) {
+                        origin.add(i);
+                        pieces.add(piece);
+                    }
+                }
+            }
+
+            final int size = pieces.size();
+            Tokens compacted = new Tokens(pieces.toArray(new String[size]), new String[size], new int[size], new int[size]);
+            for (int i = 0; i < size; i++) {
+                int o = origin.get(i);
+                compacted.tags[i] = tags[o];
+                compacted.starts[i] = starts[o];
+                compacted.ends[i] = ends[o];
+            }
+            return compacted;
+        }
 
-        Replacement(String value, String capture) {
-            this.value = value;
-            this.capture = capture;
+        private void copy(int from, Tokens dest, int destFrom, int length) {
+            System.arraycopy(words, from, dest.words, destFrom, length);
+            System.arraycopy(tags, from, dest.tags, destFrom, length);
+            System.arraycopy(starts, from, dest.starts, destFrom, length);
+            System.arraycopy(ends, from, dest.ends, destFrom, length);
         }
     }
 }
@@ -27,14 +27,17 @@ package net.stargraph.core.query.nli;
  */
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 public final class DataModelTypePattern {
 
 	private String pattern;
+	private Pattern compiledPattern;
 	private DataModelType dataModelType;
 
 	public DataModelTypePattern(String pattern, DataModelType dataModelType) {
 		this.pattern = Objects.requireNonNull(pattern);
+		this.compiledPattern = Pattern.compile(pattern);
 		this.dataModelType = Objects.requireNonNull(dataModelType);
 	}
 
@@ -42,6 +45,10 @@ public final class DataModelTypePattern {
 		return pattern;
 	}
 
+	public Pattern getCompiledPattern() {
+		return compiledPattern;
+	}
+
 	public DataModelType getDataModelType() {
 		return dataModelType;
 	}
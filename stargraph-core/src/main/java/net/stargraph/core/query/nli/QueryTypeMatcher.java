@@ -0,0 +1,149 @@
+package net.stargraph.core.query.nli;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.core.query.QueryType;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the query type of a question with all the patterns of a language at once.
+ * <p>
+ * Patterns starting with a fixed first word, like <code>^[wW]ho .+\?$</code>, are indexed by it thus only
+ * the ones for the first word of the question are tried, plus those without a fixed word. The first match,
+ * following the order of the types and then of their patterns, gives the type and counts a hit for that pattern.
+ */
+public final class QueryTypeMatcher {
+    private static final String META = "\\.[]()*+?{}|^$";
+
+    private List<QueryType> types;
+    private List<Pattern> patterns;
+    private LongAdder[] hits;
+    private Map<String, BitSet> byFirstWord;
+    private BitSet unindexed;
+
+    public QueryTypeMatcher(List<QueryTypePatterns> queryTypePatterns) {
+        this.types = new ArrayList<>();
+        this.patterns = new ArrayList<>();
+        this.byFirstWord = new HashMap<>();
+        this.unindexed = new BitSet();
+
+        for (QueryTypePatterns typePatterns : Objects.requireNonNull(queryTypePatterns)) {
+            for (Pattern pattern : typePatterns) {
+                int idx = patterns.size();
+                types.add(typePatterns.getQueryType());
+                patterns.add(pattern);
+                String firstWord = firstWord(pattern.pattern());
+                if (firstWord != null) {
+                    byFirstWord.computeIfAbsent(firstWord, w -> new BitSet()).set(idx);
+                } else {
+                    unindexed.set(idx);
+                }
+            }
+        }
+
+        this.hits = new LongAdder[patterns.size()];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * The type of the first matching pattern, null if none matches.
+     */
+    public QueryType match(String question) {
+        int space = question.indexOf(' ');
+        BitSet indexed = space > 0 ? byFirstWord.get(question.substring(0, space).toLowerCase(Locale.ROOT)) : null;
+
+        BitSet candidates = (BitSet) unindexed.clone();
+        if (indexed != null) {
+            candidates.or(indexed);
+        }
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (patterns.get(i).matcher(question).matches()) {
+                hits[i].increment();
+                return types.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hits of each pattern, prefixed by its type.
+     */
+    public Map<String, Long> getHits() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (int i = 0; i < patterns.size(); i++) {
+            snapshot.put(types.get(i) + " " + patterns.get(i).pattern(), hits[i].sum());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Lower cased word the pattern must start with, if any. Only literals and classes of both cases of a letter
+     * are understood, a quantifier after them or any other construct ends the fixed part.
+     */
+    static String firstWord(String pattern) {
+        if (!pattern.startsWith("^")) {
+            return null;
+        }
+
+        StringBuilder word = new StringBuilder();
+        int i = 1;
+        while (i < pattern.length()) {
+            char c;
+            int next;
+            if (pattern.charAt(i) == '[') {
+                int close = pattern.indexOf(']', i);
+                if (close != i + 3 || Character.toLowerCase(pattern.charAt(i + 1)) != Character.toLowerCase(pattern.charAt(i + 2))
+                        || pattern.charAt(i + 1) == pattern.charAt(i + 2)) {
+                    return null;
+                }
+                c = Character.toLowerCase(pattern.charAt(i + 1));
+                next = close + 1;
+            } else if (META.indexOf(pattern.charAt(i)) < 0) {
+                c = Character.toLowerCase(pattern.charAt(i));
+                next = i + 1;
+            } else {
+                return null;
+            }
+
+            if (next < pattern.length() && "*+?{".indexOf(pattern.charAt(next)) >= 0) {
+                return null;
+            }
+            if (c == ' ') {
+                return word.length() > 0 ? word.toString() : null;
+            }
+            word.append(c);
+            i = next;
+        }
+        return null;
+    }
+}
@@ -30,6 +30,8 @@ import net.stargraph.StarGraphException;
 import net.stargraph.core.query.QueryType;
 import net.stargraph.core.query.SPARQLQueryBuilder;
 import net.stargraph.core.query.annotator.Word;
+import net.stargraph.core.trace.QueryTrace;
+import net.stargraph.core.trace.Span;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -39,7 +41,6 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 public final class QuestionAnalysis {
     private Logger logger = LoggerFactory.getLogger(getClass());
@@ -63,7 +64,7 @@ public final class QuestionAnalysis {
         this.steps.add(new AnalysisStep(annotatedWords));
     }
 
-    void resolveDataModelBindings(List<DataModelTypePattern> rules) {
+    void resolveDataModelBindings(RuleIndex rules) {
         if (steps.isEmpty()) {
             throw new IllegalStateException();
         }
@@ -74,8 +75,12 @@ public final class QuestionAnalysis {
 
         do {
             hasMatch = false;
-            for (DataModelTypePattern rule : rules) {
-                AnalysisStep step = steps.peek().resolve(rule);
+            AnalysisStep current = steps.peek();
+            for (DataModelTypePattern rule : rules.candidates(current)) {
+                AnalysisStep step;
+                try (Span ignored = QueryTrace.span("rule", rule.getPattern())) {
+                    step = current.resolve(rule);
+                }
                 if (step != null) {
                     hasMatch = true;
                     steps.push(step);
@@ -85,7 +90,7 @@ public final class QuestionAnalysis {
         } while (hasMatch);
     }
 
-    void clean(List<Pattern> stopPatterns) {
+    void clean(StopPatternMatcher stopPatterns) {
         if (steps.isEmpty()) {
             throw new IllegalStateException();
         }
@@ -32,6 +32,8 @@ import net.stargraph.UnmappedQueryTypeException;
 import net.stargraph.core.query.QueryType;
 import net.stargraph.core.query.Rules;
 import net.stargraph.core.query.annotator.Annotator;
+import net.stargraph.core.trace.QueryTrace;
+import net.stargraph.core.trace.Span;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
@@ -39,34 +41,35 @@ import org.slf4j.MarkerFactory;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 public final class QuestionAnalyzer {
     private Logger logger = LoggerFactory.getLogger(getClass());
     private Marker marker = MarkerFactory.getMarker("nli");
     private Language language;
     private Annotator annotator;
-    private List<DataModelTypePattern> dataModelTypePatterns;
+    private RuleIndex dataModelTypePatterns;
     private List<QueryPlanPatterns> queryPlanPatterns;
-    private List<Pattern> stopPatterns;
-    private List<QueryTypePatterns> queryTypePatterns;
+    private StopPatternMatcher stopPatterns;
+    private QueryTypeMatcher queryTypeMatcher;
 
     public QuestionAnalyzer(Language language, Annotator annotator, Rules rules) {
         logger.info(marker, "Creating analyzer for '{}'", language);
         this.language = Objects.requireNonNull(language);
         this.annotator = Objects.requireNonNull(annotator);
-        this.dataModelTypePatterns = rules.getDataModelTypeRules(language);
+        this.dataModelTypePatterns = rules.getDataModelTypeIndex(language);
         this.queryPlanPatterns = rules.getQueryPlanRules(language);
-        this.stopPatterns = rules.getStopRules(language);
-        this.queryTypePatterns = rules.getQueryTypeRules(language);
+        this.stopPatterns = rules.getStopPatternMatcher(language);
+        this.queryTypeMatcher = rules.getQueryTypeMatcher(language);
     }
 
     public QuestionAnalysis analyse(String question) {
         QuestionAnalysis analysis = null;
         try {
-            long startTime = System.currentTimeMillis();
+            long startTime = System.nanoTime();
             analysis = new QuestionAnalysis(question, selectQueryType(question));
-            analysis.annotate(annotator.run(language, question));
+            try (Span ignored = QueryTrace.span("annotation", language.name())) {
+                analysis.annotate(annotator.run(language, question));
+            }
             analysis.resolveDataModelBindings(dataModelTypePatterns);
             analysis.clean(stopPatterns);
             analysis.resolveSPARQL(queryPlanPatterns);
@@ -80,15 +83,16 @@ public final class QuestionAnalyzer {
     }
 
     private QueryType selectQueryType(String question) {
-        return queryTypePatterns.stream()
-                .filter(p -> p.match(question))
-                .map(QueryTypePatterns::getQueryType)
-                .findFirst().orElseThrow(() -> new UnmappedQueryTypeException(question));
+        QueryType queryType = queryTypeMatcher.match(question);
+        if (queryType == null) {
+            throw new UnmappedQueryTypeException(question);
+        }
+        return queryType;
     }
 
     private String getTimingReport(String q, long start) {
-        long elapsedTime = System.currentTimeMillis() - start;
-        return String.format("'%s' analyzed in %.3fs", q, elapsedTime / 1000.0);
+        long elapsedTime = System.nanoTime() - start;
+        return String.format("'%s' analyzed in %.3fs", q, elapsedTime / 1e9);
     }
 
 }
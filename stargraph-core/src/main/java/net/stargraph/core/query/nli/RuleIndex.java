@@ -0,0 +1,160 @@
+package net.stargraph.core.query.nli;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dispatches the Data Model Type rules by the tokens they need to find in the question or in its POS tags.
+ * <p>
+ * Most rules are like <code>.*(NNP IN NNP).*</code>, which only match if the target contains the literal text.
+ * Such rule is indexed by one of its tokens, which must be equal to, a prefix, a suffix or a part of some token
+ * of the target depending on the spaces around it. Thus finding the candidates depends on the size of
+ * the question and not on the number of rules. Rules using other regex constructs are always candidates.
+ */
+public final class RuleIndex {
+    private static final Pattern literalRule = Pattern.compile("^\\.\\*([^.*+?|\\[\\]{}\\\\^$]*)\\.\\*$");
+
+    private enum Position {WHOLE, PREFIX, SUFFIX, INFIX}
+
+    private List<DataModelTypePattern> rules;
+    private BitSet unindexed;
+    private Map<Position, Map<String, BitSet>> index;
+
+    public RuleIndex(List<DataModelTypePattern> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNull(rules)));
+        this.unindexed = new BitSet(rules.size());
+        this.index = new EnumMap<>(Position.class);
+        for (Position position : Position.values()) {
+            index.put(position, new HashMap<>());
+        }
+
+        for (int i = 0; i < rules.size(); i++) {
+            if (!add(i, rules.get(i).getPattern())) {
+                unindexed.set(i);
+            }
+        }
+    }
+
+    public List<DataModelTypePattern> getRules() {
+        return rules;
+    }
+
+    /**
+     * Rules that may match any of the targets, in the original order.
+     */
+    public List<DataModelTypePattern> candidates(String... targets) {
+        return candidates(Arrays.stream(targets).map(t -> t.split("\\s+")).toArray(String[][]::new));
+    }
+
+    List<DataModelTypePattern> candidates(AnalysisStep step) {
+        return candidates(new String[][] {step.getWords(), step.getTags()});
+    }
+
+    private List<DataModelTypePattern> candidates(String[][] targets) {
+        BitSet found = (BitSet) unindexed.clone();
+
+        for (String[] tokens : targets) {
+            for (String token : tokens) {
+                if (!token.isEmpty()) {
+                    lookup(token, found);
+                }
+            }
+        }
+
+        List<DataModelTypePattern> candidates = new ArrayList<>(found.cardinality());
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            candidates.add(rules.get(i));
+        }
+        return candidates;
+    }
+
+    private void lookup(String token, BitSet found) {
+        final int len = token.length();
+        collect(Position.WHOLE, token, found);
+        for (int k = 1; k <= len; k++) {
+            collect(Position.PREFIX, token.substring(0, k), found);
+            collect(Position.SUFFIX, token.substring(len - k), found);
+        }
+        if (!index.get(Position.INFIX).isEmpty()) {
+            for (int i = 0; i < len; i++) {
+                for (int j = i + 1; j <= len; j++) {
+                    collect(Position.INFIX, token.substring(i, j), found);
+                }
+            }
+        }
+    }
+
+    private void collect(Position position, String key, BitSet found) {
+        BitSet rules = index.get(position).get(key);
+        if (rules != null) {
+            found.or(rules);
+        }
+    }
+
+    private boolean add(int ruleIdx, String pattern) {
+        Matcher matcher = literalRule.matcher(pattern);
+        if (!matcher.matches()) {
+            return false;
+        }
+
+        // Groups don't change what the rule matches, only what is captured.
+        String literal = matcher.group(1).replace("(", "").replace(")", "");
+        String[] tokens = literal.trim().split("\\s+");
+        if (tokens[0].isEmpty()) {
+            return false;
+        }
+
+        Position bestPosition = null;
+        String bestToken = null;
+        for (int i = 0; i < tokens.length; i++) {
+            boolean startsToken = i > 0 || literal.startsWith(" ");
+            boolean endsToken = i < tokens.length - 1 || literal.endsWith(" ");
+            Position position = startsToken ? (endsToken ? Position.WHOLE : Position.PREFIX)
+                    : (endsToken ? Position.SUFFIX : Position.INFIX);
+
+            if (bestPosition == null || position.ordinal() < bestPosition.ordinal()
+                    || (position == bestPosition && tokens[i].length() > bestToken.length())) {
+                bestPosition = position;
+                bestToken = tokens[i];
+            }
+        }
+
+        index.get(bestPosition).computeIfAbsent(bestToken, k -> new BitSet()).set(ruleIdx);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleIndex{" +
+                "rules=" + rules.size() +
+                ", unindexed=" + unindexed.cardinality() +
+                '}';
+    }
+}
@@ -0,0 +1,122 @@
+package net.stargraph.core.query.nli;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the stop patterns matching a question, in the order they are declared.
+ * <p>
+ * Most of them only remove a literal prefix, like <code>^(What is the) .+$</code>. Those are kept in a trie of words
+ * thus all of them are matched in a single walk over the start of the question. The others run as regular expressions.
+ */
+public final class StopPatternMatcher {
+    private static final Pattern literalPrefix = Pattern.compile("\\^\\(([^\\\\.\\[\\]()*+?{}|^$\\s]+(?: [^\\\\.\\[\\]()*+?{}|^$\\s]+)*)\\) \\.\\+\\$");
+
+    private List<Pattern> patterns;
+    private BitSet dynamic;
+    private Node root;
+
+    public StopPatternMatcher(List<Pattern> stopPatterns) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNull(stopPatterns)));
+        this.dynamic = new BitSet();
+        this.root = new Node();
+
+        for (int i = 0; i < patterns.size(); i++) {
+            Matcher m = literalPrefix.matcher(patterns.get(i).pattern());
+            if (m.matches() && patterns.get(i).flags() == 0) {
+                Node node = root;
+                for (String word : m.group(1).split(" ")) {
+                    node = node.children.computeIfAbsent(word, w -> new Node());
+                }
+                node.patterns.set(i);
+            } else {
+                dynamic.set(i);
+            }
+        }
+    }
+
+    public List<Pattern> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Index of the first pattern from the given one on that matches the text, -1 if none.
+     */
+    public int next(String text, int from) {
+        BitSet literals = matchLiterals(text);
+        int literal = literals.nextSetBit(from);
+        int limit = literal >= 0 ? literal : patterns.size();
+        for (int i = dynamic.nextSetBit(from); i >= 0 && i < limit; i = dynamic.nextSetBit(i + 1)) {
+            if (patterns.get(i).matcher(text).matches()) {
+                return i;
+            }
+        }
+        return literal;
+    }
+
+    /**
+     * All literal prefixes followed by a space and at least one more character, as <code>" .+$"</code> requires.
+     */
+    private BitSet matchLiterals(String text) {
+        BitSet matched = new BitSet();
+        Node node = root;
+        int pos = 0;
+        int space;
+        while ((space = text.indexOf(' ', pos)) >= 0) {
+            node = node.children.get(text.substring(pos, space));
+            if (node == null) {
+                break;
+            }
+            if (!node.patterns.isEmpty() && isAnyChars(text, space + 1)) {
+                matched.or(node.patterns);
+            }
+            pos = space + 1;
+        }
+        return matched;
+    }
+
+    private static boolean isAnyChars(String text, int from) {
+        if (from >= text.length()) {
+            return false;
+        }
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        final BitSet patterns = new BitSet();
+    }
+}
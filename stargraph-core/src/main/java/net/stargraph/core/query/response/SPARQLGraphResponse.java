@@ -0,0 +1,73 @@
+package net.stargraph.core.query.response;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.core.graph.GraphSearcher;
+import net.stargraph.core.graph.ModifiableGraphSearchParams;
+import net.stargraph.core.query.QueryResponse;
+import net.stargraph.query.InteractionMode;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Result of a CONSTRUCT or DESCRIBE query. The graph is not materialized,
+ * the query runs when the triples are consumed thus they can be written out as they come.
+ */
+public final class SPARQLGraphResponse extends QueryResponse {
+    private GraphSearcher graphSearcher;
+    private Query query;
+    private ModifiableGraphSearchParams params;
+
+    public SPARQLGraphResponse(InteractionMode interactionMode, String userQuery,
+                               GraphSearcher graphSearcher, Query query, ModifiableGraphSearchParams params) {
+        super(interactionMode, userQuery);
+        this.graphSearcher = Objects.requireNonNull(graphSearcher);
+        this.query = Objects.requireNonNull(query);
+        this.params = Objects.requireNonNull(params);
+    }
+
+    /**
+     * Runs the query handing each triple to the consumer, {@link #isTruncated()} is known afterwards.
+     */
+    public void forEach(Consumer<Triple> consumer) {
+        setTruncated(graphSearcher.construct(query, params, consumer));
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        return "SPARQLGraphResponse{" +
+                "query='" + getUserQuery() + '\'' +
+                '}';
+    }
+}
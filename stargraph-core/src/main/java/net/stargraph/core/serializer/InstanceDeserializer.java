@@ -45,6 +45,6 @@ class InstanceDeserializer extends AbstractDeserializer<InstanceEntity> {
         JsonNode node = p.getCodec().readTree(p);
         String id = node.get("id").asText();
         String value = node.get("value").asText();
-        return new InstanceEntity(id, value);
+        return new InstanceEntity(id, value, null, SignatureSerialization.read(node));
     }
 }
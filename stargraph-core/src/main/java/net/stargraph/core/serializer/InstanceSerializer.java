@@ -47,6 +47,9 @@ class InstanceSerializer extends AbstractSerializer<InstanceEntity> {
         if (value.getOtherValues() != null && !value.getOtherValues().isEmpty()) {
             g.writeObjectField("otherValues", value.getOtherValues());
         }
+        if (value.getSignature() != null) {
+            SignatureSerialization.write(value.getSignature(), g);
+        }
         g.writeEndObject();
     }
 }
@@ -45,7 +45,7 @@ class PropertyDeserializer extends AbstractDeserializer<PropertyEntity> {
         JsonNode node = p.getCodec().readTree(p);
         String id = node.get("id").asText();
         String value = node.get("value").asText();
-        return new PropertyEntity(id, value);
+        return new PropertyEntity(id, value, null, null, null, SignatureSerialization.read(node));
     }
 
 
@@ -56,6 +56,9 @@ class PropertySerializer extends AbstractSerializer<PropertyEntity> {
             if (value.getSynonyms() != null && !value.getSynonyms().isEmpty()) {
                 g.writeObjectField("synonyms", value.getSynonyms());
             }
+            if (value.getSignature() != null) {
+                SignatureSerialization.write(value.getSignature(), g);
+            }
         }
         g.writeEndObject();
     }
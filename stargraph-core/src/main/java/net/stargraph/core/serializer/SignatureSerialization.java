@@ -0,0 +1,70 @@
+package net.stargraph.core.serializer;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import net.stargraph.rank.NGramSignature;
+
+import java.io.IOException;
+
+/**
+ * Shared (de)serialization of the precomputed n-gram signatures.
+ */
+final class SignatureSerialization {
+    private static final String FIELD = "signature";
+
+    private SignatureSerialization() {
+        //
+    }
+
+    static void write(NGramSignature signature, JsonGenerator g) throws IOException {
+        g.writeObjectFieldStart(FIELD);
+        g.writeNumberField("n", signature.getN());
+        int[] grams = signature.getGrams();
+        g.writeArrayFieldStart("grams");
+        for (int gram : grams) {
+            g.writeNumber(gram);
+        }
+        g.writeEndArray();
+        g.writeEndObject();
+    }
+
+    static NGramSignature read(JsonNode node) {
+        JsonNode signature = node.get(FIELD);
+        if (signature == null || signature.isNull()) {
+            return null;
+        }
+
+        JsonNode grams = signature.get("grams");
+        int[] values = new int[grams.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = grams.get(i).asInt();
+        }
+        return new NGramSignature(signature.get("n").asInt(), values);
+    }
+}
@@ -0,0 +1,136 @@
+package net.stargraph.core.trace;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Timings of the stages of a single query, bound to the thread answering it.
+ * <p>
+ * Code on the query path opens a {@link Span} for each stage through {@link #span(String, String)}. Every span
+ * feeds the stage histogram in {@link QueryMetrics}, and is also kept here when a trace was begun on this thread.
+ * Tasks handed to other threads are wrapped with {@link #wrap(Callable)} so their spans land in the same trace.
+ */
+public final class QueryTrace {
+    private static final ThreadLocal<Binding> current = new ThreadLocal<>();
+
+    private final List<Span> spans;
+
+    private QueryTrace() {
+        this.spans = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * Binds a new trace to the current thread, to be closed with {@link #end()}.
+     */
+    public static QueryTrace begin() {
+        QueryTrace trace = new QueryTrace();
+        current.set(new Binding(trace, 0));
+        return trace;
+    }
+
+    /**
+     * @return the trace bound to the current thread or null.
+     */
+    public static QueryTrace current() {
+        Binding binding = current.get();
+        return binding != null ? binding.trace : null;
+    }
+
+    public static Span span(String stage, String name) {
+        return new Span(stage, name, current.get());
+    }
+
+    /**
+     * Binds the trace of the current thread, if any, to the thread running the task while it runs.
+     * Its spans nest under the ones open here at the time of the call.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        final Binding parent = current.get();
+        if (parent == null) {
+            return task;
+        }
+        final int depth = parent.depth;
+        return () -> {
+            Binding previous = current.get();
+            current.set(new Binding(parent.trace, depth));
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) {
+                    current.set(previous);
+                } else {
+                    current.remove();
+                }
+            }
+        };
+    }
+
+    public void end() {
+        if (current() == this) {
+            current.remove();
+        }
+    }
+
+    public List<Span> getSpans() {
+        synchronized (spans) {
+            return new ArrayList<>(spans);
+        }
+    }
+
+    /**
+     * The trace as seen by one thread, which keeps its own nesting level.
+     */
+    static final class Binding {
+        private final QueryTrace trace;
+        private int depth;
+
+        private Binding(QueryTrace trace, int depth) {
+            this.trace = trace;
+            this.depth = depth;
+        }
+
+        int opened(Span span) {
+            trace.spans.add(span);
+            return depth++;
+        }
+
+        void closed(Span span) {
+            depth--;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("QueryTrace{");
+        getSpans().forEach(s -> sb.append("\n").append(s));
+        return sb.append("}").toString();
+    }
+}
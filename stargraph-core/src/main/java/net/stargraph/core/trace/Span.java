@@ -0,0 +1,94 @@
+package net.stargraph.core.trace;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import java.util.Objects;
+
+/**
+ * Time taken by one stage of a query, measured with {@link System#nanoTime()} until closed.
+ */
+public final class Span implements AutoCloseable {
+    private String stage;
+    private String name;
+    private QueryTrace.Binding trace;
+    private int depth;
+    private long startTime;
+    private long elapsedNanos;
+
+    Span(String stage, String name, QueryTrace.Binding trace) {
+        this.stage = Objects.requireNonNull(stage);
+        this.name = name;
+        this.trace = trace;
+        this.depth = trace != null ? trace.opened(this) : 0;
+        this.elapsedNanos = -1;
+        this.startTime = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+        if (elapsedNanos >= 0) {
+            return;
+        }
+        elapsedNanos = System.nanoTime() - startTime;
+        QueryMetrics.record(stage, elapsedNanos);
+        if (trace != null) {
+            trace.closed(this);
+        }
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Nesting level within the trace, 0 for the outermost spans.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the elapsed time or -1 while still open.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%" + (depth * 2 + 1) + "s%s%s: %.3fms", "", stage,
+                name != null ? " '" + name + "'" : "", getElapsedMillis());
+    }
+}
@@ -0,0 +1,136 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.StarGraphException;
+import net.stargraph.core.impl.corenlp.CoreNLPAnnotatorFactory;
+import net.stargraph.core.impl.opennlp.OpenNLPAnnotatorFactory;
+import net.stargraph.core.query.annotator.Annotator;
+import net.stargraph.core.query.annotator.Word;
+import net.stargraph.query.Language;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Annotation throughput of CoreNLP and OpenNLP under concurrent load, over the questions of the test set.
+ * Also checks that concurrent annotation gives the same result as the sequential one.
+ */
+public final class AnnotatorBenchmarkIT {
+    private static final int ROUNDS = 20;
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Config config;
+    private List<String> questions;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        config = ConfigFactory.load().getConfig("stargraph");
+        try (InputStream is = ClassLoader.getSystemResourceAsStream("dbpedia-2016-test-queries.json")) {
+            JsonReader reader = Json.createReader(is);
+            questions = reader.readArray().getValuesAs(JsonObject.class).stream()
+                    .map(entry -> entry.getString("query")).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void coreNLPTest() throws Exception {
+        benchmark("CoreNLP", new CoreNLPAnnotatorFactory(config).create());
+    }
+
+    @Test
+    public void openNLPTest() throws Exception {
+        if (!new File(config.getString("opennlp.models-dir")).isDirectory()) {
+            throw new SkipException("OpenNLP models not found.");
+        }
+        benchmark("OpenNLP", new OpenNLPAnnotatorFactory(config).create());
+    }
+
+    private void benchmark(String name, Annotator annotator) throws Exception {
+        List<String> annotated = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (String q : questions) {
+            try {
+                expected.add(annotate(annotator, q)); // also warms up
+                annotated.add(q);
+            }
+            catch (StarGraphException e) {
+                logger.warn("{}: can't annotate '{}'", name, q);
+            }
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double sequential = run(annotator, 1, annotated, expected);
+        double concurrent = run(annotator, cores, annotated, expected);
+
+        logger.info("{}: {} q/s with 1 thread, {} q/s with {} threads ({}x)", name,
+                String.format("%.1f", sequential), String.format("%.1f", concurrent), cores,
+                String.format("%.2f", concurrent / sequential));
+    }
+
+    private double run(Annotator annotator, int threads, List<String> questions, List<String> expected) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                for (String q : questions) {
+                    results.add(executor.submit(() -> annotate(annotator, q)));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(results.get(i).get(), expected.get(i % questions.size()));
+            }
+            return results.size() / ((System.nanoTime() - start) / 1e9);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String annotate(Annotator annotator, String sentence) {
+        List<Word> words = annotator.run(Language.EN, sentence);
+        return words.stream().map(Word::toString).collect(Collectors.joining(" "));
+    }
+}
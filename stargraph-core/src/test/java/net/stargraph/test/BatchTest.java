@@ -0,0 +1,78 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.core.query.Batch;
+import net.stargraph.core.query.QueryResponse;
+import net.stargraph.core.query.response.NoResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static net.stargraph.query.InteractionMode.NLI;
+
+public final class BatchTest {
+
+    @Test
+    public void windowTest() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Callable<QueryResponse>> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String query = "q" + i;
+            tasks.add(() -> {
+                release.await();
+                return new NoResponse(NLI, query);
+            });
+        }
+
+        try (Batch batch = new Batch(executor, tasks, 2)) {
+            Assert.assertEquals(executor.getTaskCount(), 2);
+            Future<QueryResponse> first = batch.next();
+            Assert.assertEquals(executor.getTaskCount(), 3);
+            release.countDown();
+            Assert.assertEquals(first.get().getUserQuery(), "q0");
+
+            Future<QueryResponse> second = batch.next();
+            batch.close();
+            Assert.assertFalse(batch.hasNext());
+            Assert.assertTrue(second.isDone());
+            // the last ones were never submitted
+            Assert.assertEquals(executor.getTaskCount(), 4);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
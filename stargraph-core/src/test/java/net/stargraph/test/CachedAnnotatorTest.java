@@ -0,0 +1,87 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.query.annotator.Annotator;
+import net.stargraph.core.query.annotator.CachedAnnotator;
+import net.stargraph.core.query.annotator.Word;
+import net.stargraph.query.Language;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public final class CachedAnnotatorTest {
+
+    @Test
+    public void hitTest() {
+        AtomicInteger calls = new AtomicInteger();
+        CachedAnnotator annotator = create(calls, 10);
+
+        List<Word> first = annotator.run(Language.EN, "Who is the wife of Barack Obama?");
+        List<Word> second = annotator.run(Language.EN, "  Who is the  wife of Barack Obama? ");
+        Assert.assertSame(second, first);
+        Assert.assertEquals(calls.get(), 1);
+        Assert.assertEquals(annotator.getStats().hitCount(), 1);
+
+        annotator.run(Language.EN, "who is the wife of Barack Obama?");
+        Assert.assertEquals(calls.get(), 2);
+    }
+
+    @Test
+    public void evictionTest() {
+        AtomicInteger calls = new AtomicInteger();
+        CachedAnnotator annotator = create(calls, 2);
+
+        for (int i = 0; i < 5; i++) {
+            annotator.run(Language.EN, "Question " + i);
+        }
+        Assert.assertEquals(annotator.size(), 2);
+        Assert.assertEquals(annotator.getStats().evictionCount(), 3);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void unmodifiableTest() {
+        create(new AtomicInteger(), 10).run(Language.EN, "Who?").clear();
+    }
+
+    private static CachedAnnotator create(AtomicInteger calls, int maxSize) {
+        Annotator annotator = new Annotator() {
+            @Override
+            protected List<Word> doRun(Language language, String sentence) {
+                calls.incrementAndGet();
+                return Arrays.stream(sentence.trim().split("\\s+"))
+                        .map(token -> new Word(null, token)).collect(Collectors.toList());
+            }
+        };
+        return new CachedAnnotator(annotator, ConfigFactory.parseString("max-size = " + maxSize));
+    }
+}
@@ -0,0 +1,175 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.GraphModelFactory;
+import net.stargraph.core.Stargraph;
+import net.stargraph.core.query.Gazetteer;
+import net.stargraph.data.Indexable;
+import net.stargraph.model.InstanceEntity;
+import net.stargraph.model.KBId;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public final class GazetteerTest {
+
+    @Test
+    public void findTest() {
+        Gazetteer gazetteer = create(Integer.MAX_VALUE, entity("dbr:Barack_Obama", "Barack Obama"),
+                entity("dbr:Obama", "Obama"), entity("dbr:Michelle_Obama", "Michelle  Obama"), entity("dbr:Bar", "Bar"));
+
+        Assert.assertEquals(labels(gazetteer.find("Who is the wife of barack OBAMA?")), Arrays.asList("barack obama", "obama"));
+        Assert.assertEquals(labels(gazetteer.find("Is Michelle\tObama in a bar?")), Arrays.asList("michelle obama", "obama", "bar"));
+        Assert.assertTrue(gazetteer.find("Who are the Obamas at the Barrack?").isEmpty());
+        Assert.assertEquals(gazetteer.find("barack obama").get(0).getEntities().get(0).getId(), "dbr:Barack_Obama");
+
+        Gazetteer.Mention mention = gazetteer.find("Where was Obama born?").get(0);
+        Assert.assertEquals(mention.getStart(), 10);
+        Assert.assertEquals(mention.getEnd(), 15);
+    }
+
+    @Test
+    public void sameAsNaiveTest() {
+        String[] labels = {"a", "ab", "abc", "b", "bc", "bca", "c a", "cab", "abcab"};
+        List<InstanceEntity> entities = Arrays.stream(labels).map(l -> entity(l, l)).collect(Collectors.toList());
+        Gazetteer gazetteer = new Gazetteer(entities.iterator(), Integer.MAX_VALUE);
+
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = "abc ".charAt(random.nextInt(4));
+            }
+            String text = Gazetteer.normalize(new String(chars));
+
+            Set<String> expected = new HashSet<>();
+            for (String label : labels) {
+                for (int from = text.indexOf(label); from >= 0; from = text.indexOf(label, from + 1)) {
+                    int to = from + label.length();
+                    if ((from == 0 || text.charAt(from - 1) == ' ') && (to == text.length() || text.charAt(to) == ' ')) {
+                        expected.add(from + " " + label);
+                    }
+                }
+            }
+
+            Set<String> found = gazetteer.find(text).stream()
+                    .map(m -> m.getStart() + " " + m.getLabel()).collect(Collectors.toSet());
+            Assert.assertEquals(found, expected, text);
+        }
+    }
+
+    @Test
+    public void sharedLabelsTest() {
+        InstanceEntity aliased = new InstanceEntity("dbr:Paris_Hilton", "Paris Hilton", Collections.singletonList("Paris"));
+        Gazetteer gazetteer = create(2, entity("dbr:Paris", "Paris"), entity("dbr:Paris", "Paris"), aliased,
+                entity("dbr:Rome", "Rome"));
+
+        Assert.assertEquals(gazetteer.size(), 2);
+        Assert.assertEquals(gazetteer.get("paris").stream().map(InstanceEntity::getId).collect(Collectors.toList()),
+                Arrays.asList("dbr:Paris", "dbr:Paris_Hilton"));
+        Assert.assertTrue(gazetteer.get("Rome").isEmpty(), "Beyond the maximum labels");
+        Assert.assertTrue(create(0, entity("dbr:Rome", "Rome")).find("Rome").isEmpty());
+    }
+
+    @Test
+    public void withTest() {
+        Gazetteer gazetteer = create(3, entity("dbr:Barack_Obama", "Barack Obama"), entity("dbr:Obama", "Obama"));
+        Gazetteer updated = gazetteer.with(Arrays.asList(entity("dbr:Obama_(disambiguation)", "Obama"),
+                entity("dbr:Michelle_Obama", "Michelle Obama"), entity("dbr:Rome", "Rome")).iterator(), 3);
+
+        Assert.assertEquals(updated.size(), 3);
+        Assert.assertEquals(labels(updated.find("Is Michelle Obama the wife of Barack Obama?")),
+                Arrays.asList("michelle obama", "obama", "barack obama", "obama"));
+        Assert.assertEquals(updated.get("Obama").size(), 2);
+        Assert.assertTrue(updated.get("Rome").isEmpty(), "Beyond the maximum labels");
+        // the original is left as is
+        Assert.assertEquals(gazetteer.size(), 2);
+        Assert.assertEquals(gazetteer.get("Obama").size(), 1);
+    }
+
+    @Test
+    public void stopsAtMaxLabelsTest() {
+        Iterator<InstanceEntity> entities = Arrays.asList(entity("dbr:A", "A"), entity("dbr:B", "B"),
+                entity("dbr:C", "C"), entity("dbr:D", "D")).iterator();
+        Assert.assertEquals(new Gazetteer(entities, 2).size(), 2);
+        Assert.assertEquals(entities.next().getId(), "dbr:C", "Read beyond the maximum labels");
+    }
+
+    @Test
+    public void backgroundTest() throws Exception {
+        Model model = ModelFactory.createDefaultModel();
+        model.add(model.createResource("http://dbpedia.org/resource/Barack_Obama"),
+                model.createProperty("http://dbpedia.org/ontology/spouse"),
+                model.createResource("http://dbpedia.org/resource/Michelle_Obama"));
+        Stargraph core = new Stargraph(ConfigFactory.load().getConfig("stargraph"), false);
+        core.setModelFactory(new GraphModelFactory(core) {
+            @Override
+            protected Model createModel(String dbId) {
+                return model;
+            }
+        });
+
+        Assert.assertEquals(await(() -> core.getGazetteer("obama").get("Michelle Obama")).get(0).getId(),
+                "dbr:Michelle_Obama");
+        Assert.assertEquals(core.getGazetteer("obama").size(), 2);
+
+        KBId kbId = KBId.of("obama", "entities");
+        core.invalidateResponses(kbId, new Indexable(entity("dbr:Malia_Obama", "Malia Obama"), kbId));
+        await(() -> core.getGazetteer("obama").get("Malia Obama"));
+        Assert.assertEquals(core.getGazetteer("obama").size(), 3);
+    }
+
+    private static List<InstanceEntity> await(Supplier<List<InstanceEntity>> lookup) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            List<InstanceEntity> entities = lookup.get();
+            if (!entities.isEmpty()) {
+                return entities;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Not loaded in time");
+    }
+
+    private static Gazetteer create(int maxLabels, InstanceEntity... entities) {
+        return new Gazetteer(Arrays.asList(entities).iterator(), maxLabels);
+    }
+
+    private static InstanceEntity entity(String id, String label) {
+        return new InstanceEntity(id, label);
+    }
+
+    private static List<String> labels(List<Gazetteer.Mention> mentions) {
+        return mentions.stream().map(Gazetteer.Mention::getLabel).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,193 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import net.stargraph.core.GraphModelFactory;
+import net.stargraph.core.Stargraph;
+import net.stargraph.core.graph.ModifiableGraphSearchParams;
+import net.stargraph.core.graph.SelectResult;
+import net.stargraph.core.impl.jena.JenaGraphSearcher;
+import net.stargraph.StarGraphException;
+import net.stargraph.model.LabeledEntity;
+import net.stargraph.model.ValueEntity;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executions against an in-memory model, no index is needed.
+ */
+public final class JenaGraphSearcherTest {
+    static final String EX = "http://example.org/";
+
+    private JenaGraphSearcher searcher;
+
+    @BeforeClass
+    public void beforeClass() {
+        Model model = ModelFactory.createDefaultModel();
+        Property p = model.createProperty(EX + "p");
+        for (int i = 0; i < 20; i++) {
+            Resource s = model.createResource(EX + "s" + i);
+            s.addProperty(p, model.createResource(EX + "o" + i));
+            s.addLiteral(model.createProperty(EX + "n"), i);
+        }
+
+        Config config = ConfigFactory.load().getConfig("stargraph")
+                .withValue("graph-search.max-rows", ConfigValueFactory.fromAnyRef(5))
+                .withValue("graph-search.max-rows-cap", ConfigValueFactory.fromAnyRef(8))
+                .withValue("graph-search.max-timeout", ConfigValueFactory.fromAnyRef("200ms"));
+        searcher = create(config, model);
+    }
+
+    static JenaGraphSearcher create(Config config, Model model) {
+        Stargraph core = new Stargraph(config, false);
+        core.setModelFactory(new GraphModelFactory(core) {
+            @Override
+            protected Model createModel(String dbId) {
+                return model;
+            }
+        });
+        return new JenaGraphSearcher("obama", core);
+    }
+
+    @Test
+    public void rowLimitsTest() {
+        String query = "SELECT ?o WHERE { ?s <" + EX + "p> ?o }";
+
+        SelectResult defaults = searcher.select(query);
+        Assert.assertEquals(defaults.get("o").size(), 5);
+        Assert.assertTrue(defaults.isTruncated());
+
+        SelectResult fewer = searcher.select(query, ModifiableGraphSearchParams.create().maxRows(3));
+        Assert.assertEquals(fewer.get("o").size(), 3);
+        Assert.assertTrue(fewer.isTruncated());
+
+        SelectResult clamped = searcher.select(query, ModifiableGraphSearchParams.create().maxRows(Integer.MAX_VALUE));
+        Assert.assertEquals(clamped.get("o").size(), 8);
+        Assert.assertTrue(clamped.isTruncated());
+
+        SelectResult all = searcher.select("SELECT ?o WHERE { <" + EX + "s1> <" + EX + "p> ?o }");
+        Assert.assertEquals(all.get("o").size(), 1);
+        Assert.assertFalse(all.isTruncated());
+    }
+
+    @Test
+    public void timeoutClampTest() {
+        // Millions of rows to count, far longer than the 200ms cap.
+        String query = "SELECT (COUNT(*) AS ?count) WHERE { ?a ?p ?b . ?c ?q ?d . ?e ?r ?f . ?g ?h ?i . ?j ?k ?l }";
+
+        long startTime = System.nanoTime();
+        SelectResult result = searcher.select(query, ModifiableGraphSearchParams.create().timeout(999999999));
+        long millis = (System.nanoTime() - startTime) / 1000000;
+
+        Assert.assertTrue(result.isTruncated());
+        Assert.assertTrue(millis < 10000, "Took " + millis + "ms");
+    }
+
+    @Test
+    public void normalizeTest() {
+        Assert.assertEquals(JenaGraphSearcher.normalizeQuery(" SELECT  ?s\n WHERE {\t?s ?p  ?o }  "),
+                "SELECT ?s WHERE { ?s ?p ?o }");
+        Assert.assertEquals(JenaGraphSearcher.normalizeQuery("SELECT * WHERE { ?s <http://x.org/a#b>   \"a  b\" }"),
+                "SELECT * WHERE { ?s <http://x.org/a#b> \"a  b\" }");
+        Assert.assertEquals(JenaGraphSearcher.normalizeQuery("ASK { ?s ?p 'it''s  here' }"), "ASK { ?s ?p 'it''s  here' }");
+        Assert.assertEquals(JenaGraphSearcher.normalizeQuery("SELECT * WHERE { ?s ?p ?o } # a  comment\n"),
+                "SELECT * WHERE { ?s ?p ?o } # a  comment");
+    }
+
+    @Test
+    public void comparisonIsNotIRITest() {
+        String a = "SELECT * WHERE { ?s ?p ?x . ?s ?q ?l FILTER(?x < 1 && ?l = \"a > b  c\") }";
+        String b = "SELECT * WHERE { ?s ?p ?x . ?s ?q ?l FILTER(?x < 1 && ?l = \"a > b c\") }";
+
+        Assert.assertEquals(JenaGraphSearcher.normalizeQuery(a), a);
+        Assert.assertNotEquals(JenaGraphSearcher.normalizeQuery(a), JenaGraphSearcher.normalizeQuery(b));
+        Assert.assertEquals(JenaGraphSearcher.normalizeQuery("FILTER(?x <=  1 && ?y>2)"), "FILTER(?x <= 1 && ?y>2)");
+    }
+
+    @Test
+    public void askTest() {
+        ModifiableGraphSearchParams params = ModifiableGraphSearchParams.create();
+        Assert.assertTrue(searcher.ask(searcher.parse("ASK { <" + EX + "s1> <" + EX + "p> <" + EX + "o1> }"), params));
+        Assert.assertFalse(searcher.ask(searcher.parse("ASK { <" + EX + "s1> <" + EX + "p> <" + EX + "o2> }"), params));
+    }
+
+    @Test(expectedExceptions = StarGraphException.class)
+    public void askNotSelectTest() {
+        searcher.select("ASK { ?s ?p ?o }");
+    }
+
+    @Test
+    public void constructTest() {
+        List<Triple> triples = new ArrayList<>();
+        String query = "CONSTRUCT { ?o <" + EX + "of> ?s } WHERE { ?s <" + EX + "p> ?o }";
+
+        Assert.assertTrue(searcher.construct(searcher.parse(query), ModifiableGraphSearchParams.create(), triples::add));
+        Assert.assertEquals(triples.size(), 5, "Default row limit");
+        Assert.assertTrue(triples.stream().allMatch(t -> t.getPredicate().getURI().equals(EX + "of")));
+
+        triples.clear();
+        String single = "CONSTRUCT { ?o <" + EX + "of> <" + EX + "s1> } WHERE { <" + EX + "s1> <" + EX + "p> ?o }";
+        Assert.assertFalse(searcher.construct(searcher.parse(single), ModifiableGraphSearchParams.create(), triples::add));
+        Assert.assertEquals(triples.size(), 1);
+        Assert.assertEquals(triples.get(0).getSubject().getURI(), EX + "o1");
+    }
+
+    @Test
+    public void describeTest() {
+        List<Triple> triples = new ArrayList<>();
+        Assert.assertFalse(searcher.construct(searcher.parse("DESCRIBE <" + EX + "s1>"),
+                ModifiableGraphSearchParams.create(), triples::add));
+        Assert.assertEquals(triples.size(), 2);
+    }
+
+    @Test
+    public void aggregateTest() {
+        String query = "SELECT (COUNT(DISTINCT ?s) AS ?COUNT) (SUM(?n) AS ?SUM) WHERE { ?s <" + EX + "n> ?n }";
+        List<Map<String, LabeledEntity>> rows = new ArrayList<>();
+
+        Assert.assertFalse(searcher.select(searcher.parse(query), ModifiableGraphSearchParams.create(), rows::add));
+        Assert.assertEquals(rows.size(), 1);
+        ValueEntity count = (ValueEntity) rows.get(0).get("COUNT");
+        Assert.assertEquals(count.getValue(), "20");
+        Assert.assertEquals(count.getDataType(), XSDDatatype.XSDinteger.getURI());
+        Assert.assertEquals(rows.get(0).get("SUM").getValue(), "190");
+    }
+}
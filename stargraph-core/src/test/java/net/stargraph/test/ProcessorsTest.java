@@ -38,6 +38,7 @@ import net.stargraph.model.Fact;
 import net.stargraph.model.InstanceEntity;
 import net.stargraph.model.KBId;
 import net.stargraph.model.PropertyEntity;
+import net.stargraph.rank.NGramSignature;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -108,4 +109,15 @@ public final class ProcessorsTest {
         Assert.assertTrue(holder.isSinkable());
     }
 
+    @Test
+    public void ngramSignatureProcessorTest() {
+        KBId kbId = KBId.of("obama", "entities");
+        InstanceEntity entity = ModelUtils.createInstance("dbr:Barack_Obama");
+        Processor processor = Processors.create(config.withOnlyPath("ngram-signature"));
+        Holder holder = new Indexable(entity, kbId);
+        processor.run(holder);
+        InstanceEntity processed = (InstanceEntity) holder.get();
+        Assert.assertEquals(processed, entity);
+        Assert.assertEquals(processed.getSignature(), NGramSignature.of(entity.getValue(), 1));
+    }
 }
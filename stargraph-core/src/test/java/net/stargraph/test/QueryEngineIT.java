@@ -28,6 +28,7 @@ package net.stargraph.test;
 
 import net.stargraph.core.Stargraph;
 import net.stargraph.core.query.QueryEngine;
+import net.stargraph.core.query.QueryResponse;
 import net.stargraph.core.query.response.AnswerSetResponse;
 import net.stargraph.core.query.response.SPARQLSelectResponse;
 import net.stargraph.model.InstanceEntity;
@@ -40,17 +41,20 @@ import org.testng.annotations.Test;
 import javax.json.*;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class QueryEngineIT {
     private static String dbId = "dbpedia-2016";
+    private Stargraph core;
     private QueryEngine queryEngine;
 
     @BeforeClass
     public void beforeClass() {
-        queryEngine = new QueryEngine(dbId, new Stargraph());
+        core = new Stargraph();
+        queryEngine = new QueryEngine(dbId, core);
     }
 
     @Test
@@ -67,6 +71,29 @@ public class QueryEngineIT {
                 response.getBindings().get("o").get(0).getId());
     }
 
+    @Test
+    public void queryAllTest() {
+        List<String> queries = Arrays.asList("Who is the wife of Barack Obama?",
+                "Who is the president of Brazil?", "Who is the wife of Barack Obama?");
+        List<List<String>> expected = queries.stream()
+                .map(q -> answerIds(queryEngine.query(q))).collect(Collectors.toList());
+        // answered again, not from the cache
+        core.getResponseCache(dbId).invalidateAll();
+
+        List<QueryResponse> responses = queryEngine.queryAll(queries);
+        Assert.assertEquals(queries.size(), responses.size());
+        for (int i = 0; i < queries.size(); i++) {
+            Assert.assertEquals(queries.get(i), responses.get(i).getUserQuery());
+            Assert.assertEquals(expected.get(i), answerIds(responses.get(i)));
+        }
+    }
+
+    private static List<String> answerIds(QueryResponse response) {
+        Assert.assertTrue(response instanceof AnswerSetResponse);
+        return ((AnswerSetResponse) response).getShortAnswer().stream()
+                .map(LabeledEntity::getId).sorted().collect(Collectors.toList());
+    }
+
     @Test(dataProvider = "nlQueries", dataProviderClass = QueryEngineIT.class)
     public void test(String q, List<String> answers) {
         AnswerSetResponse response = (AnswerSetResponse) queryEngine.query(q);
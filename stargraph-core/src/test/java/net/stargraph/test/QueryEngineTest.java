@@ -0,0 +1,139 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import net.stargraph.core.GraphModelFactory;
+import net.stargraph.core.Stargraph;
+import net.stargraph.core.graph.ModifiableGraphSearchParams;
+import net.stargraph.core.query.QueryEngine;
+import net.stargraph.core.query.QueryResponse;
+import net.stargraph.core.query.response.SPARQLGraphResponse;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SPARQL through the query engine on an in-memory graph, no index needed.
+ */
+public final class QueryEngineTest {
+    private static final String EX = "http://example.org/";
+
+    private Stargraph core;
+    private QueryEngine queryEngine;
+
+    @BeforeClass
+    public void beforeClass() {
+        Model model = ModelFactory.createDefaultModel();
+        Property p = model.createProperty(EX + "p");
+        for (int i = 0; i < 3; i++) {
+            model.add(model.createResource(EX + "s"), p, model.createResource(EX + "o" + i));
+        }
+
+        Config config = ConfigFactory.load().getConfig("stargraph")
+                .withValue("annotator.preload", ConfigValueFactory.fromAnyRef(false));
+        core = new Stargraph(config, false);
+        core.setModelFactory(new GraphModelFactory(core) {
+            @Override
+            protected Model createModel(String dbId) {
+                return model;
+            }
+        });
+        queryEngine = new QueryEngine("obama", core);
+    }
+
+    @AfterClass
+    public void afterClass() {
+        queryEngine.close();
+    }
+
+    @Test
+    public void describeTest() {
+        QueryResponse response = queryEngine.query("DESCRIBE <" + EX + "s>");
+        Assert.assertTrue(response instanceof SPARQLGraphResponse, String.valueOf(response));
+
+        List<Triple> triples = new ArrayList<>();
+        ((SPARQLGraphResponse) response).forEach(triples::add);
+        Assert.assertEquals(triples.size(), 3);
+        Assert.assertFalse(response.isTruncated());
+
+        response = queryEngine.query("PREFIX ex: <" + EX + "> DESCRIBE ex:s");
+        Assert.assertTrue(response instanceof SPARQLGraphResponse, String.valueOf(response));
+    }
+
+    @Test
+    public void concurrentConstructTest() throws Exception {
+        final String query = "CONSTRUCT { ?o <" + EX + "of> ?s } WHERE { ?s <" + EX + "p> ?o }";
+        final int clients = 8;
+        long cacheRequests = core.getResponseCache("obama").getStats().requestCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CyclicBarrier barrier = new CyclicBarrier(clients);
+        Set<QueryResponse> responses = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < clients; i++) {
+                ModifiableGraphSearchParams params = ModifiableGraphSearchParams.create().queryId("construct-" + i);
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    SPARQLGraphResponse response = (SPARQLGraphResponse) queryEngine.query(query, params);
+                    responses.add(response);
+                    List<Triple> triples = new ArrayList<>();
+                    response.forEach(triples::add);
+                    return triples.size();
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(future.get().intValue(), 3);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        // each client got its own, running with its own query id
+        Assert.assertEquals(responses.size(), clients);
+        Assert.assertEquals(core.getResponseCache("obama").getStats().requestCount(), cacheRequests);
+    }
+}
@@ -58,4 +58,10 @@ public final class QueryInteractionModeTest {
         Assert.assertEquals(mode, InteractionMode.SPARQL);
     }
 
+    @Test
+    public void describeTest() {
+        Assert.assertEquals(selector.detect("DESCRIBE <http://dbpedia.org/resource/Barack_Obama>"), InteractionMode.SPARQL);
+        Assert.assertEquals(selector.detect("PREFIX dbr: <http://dbpedia.org/resource/> DESCRIBE dbr:Barack_Obama"),
+                InteractionMode.SPARQL);
+    }
 }
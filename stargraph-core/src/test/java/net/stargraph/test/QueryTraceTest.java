@@ -0,0 +1,117 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.core.trace.LatencyHistogram;
+import net.stargraph.core.trace.QueryMetrics;
+import net.stargraph.core.trace.QueryTrace;
+import net.stargraph.core.trace.Span;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class QueryTraceTest {
+
+    @Test
+    public void nestedSpansTest() {
+        QueryTrace trace = QueryTrace.begin();
+        try (Span ignored = QueryTrace.span("test-query", null)) {
+            try (Span inner = QueryTrace.span("test-search", "instance 'Obama'")) {
+                Assert.assertEquals(inner.getElapsedNanos(), -1);
+            }
+            try (Span ignored2 = QueryTrace.span("test-search", "pivoted 'wife'")) {
+                // nothing
+            }
+        } finally {
+            trace.end();
+        }
+
+        List<Span> spans = trace.getSpans();
+        Assert.assertEquals(spans.size(), 3);
+        Assert.assertEquals(spans.get(0).getStage(), "test-query");
+        Assert.assertEquals(spans.get(0).getDepth(), 0);
+        Assert.assertEquals(spans.get(1).getDepth(), 1);
+        Assert.assertEquals(spans.get(2).getName(), "pivoted 'wife'");
+        Assert.assertTrue(spans.stream().allMatch(s -> s.getElapsedNanos() >= 0));
+        Assert.assertTrue(spans.get(0).getElapsedNanos() >= spans.get(1).getElapsedNanos());
+
+        Assert.assertNull(QueryTrace.current());
+        Assert.assertEquals(QueryMetrics.getHistogram("test-search").getCount(), 2);
+    }
+
+    @Test
+    public void wrappedTaskTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        QueryTrace trace = QueryTrace.begin();
+        try (Span ignored = QueryTrace.span("test-query", null)) {
+            Future<QueryTrace> first = executor.submit(QueryTrace.wrap(() -> {
+                try (Span ignored2 = QueryTrace.span("test-pivot", "candidate #0")) {
+                    return QueryTrace.current();
+                }
+            }));
+            Future<QueryTrace> second = executor.submit(QueryTrace.wrap(() -> {
+                try (Span ignored2 = QueryTrace.span("test-pivot", "candidate #1")) {
+                    return QueryTrace.current();
+                }
+            }));
+            Assert.assertSame(first.get(), trace);
+            Assert.assertSame(second.get(), trace);
+        } finally {
+            trace.end();
+        }
+
+        List<Span> spans = trace.getSpans();
+        Assert.assertEquals(spans.size(), 3);
+        Assert.assertEquals(spans.get(0).getDepth(), 0);
+        Assert.assertEquals(spans.get(1).getDepth(), 1);
+        Assert.assertEquals(spans.get(2).getDepth(), 1);
+
+        // the workers are left unbound
+        Assert.assertNull(executor.submit(QueryTrace::current).get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000_000L); // 1 to 100ms
+        }
+
+        Assert.assertEquals(histogram.getCount(), 100);
+        Assert.assertEquals(histogram.getMeanMillis(), 50.5, 0.001);
+        Assert.assertEquals(histogram.getMaxMillis(), 100.0, 0.001);
+        // power of two buckets, the estimate is at most twice the real value
+        double p50 = histogram.getPercentileMillis(0.5);
+        Assert.assertTrue(p50 >= 50 && p50 <= 100, "p50=" + p50);
+        Assert.assertEquals(histogram.getPercentileMillis(1), 100.0, 0.001);
+    }
+}
@@ -0,0 +1,104 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.query.QueryType;
+import net.stargraph.core.query.Rules;
+import net.stargraph.core.query.nli.QueryTypeMatcher;
+import net.stargraph.core.query.nli.QueryTypePatterns;
+import net.stargraph.query.Language;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * The matcher must select the same type as trying every pattern in order.
+ */
+public final class QueryTypeMatcherTest {
+
+    private List<QueryTypePatterns> rules;
+
+    @BeforeClass
+    public void beforeClass() {
+        rules = new Rules(ConfigFactory.load().getConfig("stargraph")).getQueryTypeRules(Language.EN);
+    }
+
+    @Test
+    public void sameAsScanningTest() {
+        QueryTypeMatcher matcher = new QueryTypeMatcher(rules);
+        String[] words = {"is", "Is", "IS", "are", "how", "How", "many", "often", "who", "Who", "Whom", "list",
+                "give", "me", "Obama", "Obama?", "", "?", "the", "wife", "İs"};
+
+        Random random = new Random(17);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder question = new StringBuilder();
+            int size = random.nextInt(6);
+            for (int j = 0; j < size; j++) {
+                question.append(words[random.nextInt(words.length)]).append(random.nextInt(5) == 0 ? "" : " ");
+            }
+            if (random.nextBoolean()) {
+                question.append("?");
+            }
+
+            String q = question.toString();
+            QueryType expected = rules.stream()
+                    .filter(p -> p.match(q))
+                    .map(QueryTypePatterns::getQueryType)
+                    .findFirst().orElse(null);
+            Assert.assertEquals(matcher.match(q), expected, q);
+        }
+    }
+
+    @Test
+    public void unindexedPatternTest() {
+        QueryTypeMatcher matcher = new QueryTypeMatcher(Arrays.asList(
+                new QueryTypePatterns(QueryType.ASK, Collections.singletonList(Pattern.compile("^(is|are) .+\\?$"))),
+                new QueryTypePatterns(QueryType.SELECT, Collections.singletonList(Pattern.compile("^[wW]ho .+\\?$")))));
+
+        Assert.assertEquals(matcher.match("are you there?"), QueryType.ASK);
+        Assert.assertEquals(matcher.match("Who is there?"), QueryType.SELECT);
+        Assert.assertNull(matcher.match("whom is there?"));
+    }
+
+    @Test
+    public void hitsTest() {
+        QueryTypeMatcher matcher = new QueryTypeMatcher(rules);
+        matcher.match("Who is the wife of Barack Obama?");
+        matcher.match("who is the wife of Barack Obama?");
+        matcher.match("Is Obama a politician?");
+        matcher.match("Nothing matches this");
+
+        Map<String, Long> hits = matcher.getHits();
+        Assert.assertEquals(hits.get("SELECT ^[wW]ho .+\\?$"), Long.valueOf(2));
+        Assert.assertEquals(hits.get("ASK ^[iI]s .+\\?$"), Long.valueOf(1));
+        Assert.assertEquals(hits.values().stream().mapToLong(Long::longValue).sum(), 3);
+    }
+}
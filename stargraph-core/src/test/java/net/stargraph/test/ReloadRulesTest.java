@@ -0,0 +1,82 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import net.stargraph.core.query.Analyzers;
+import net.stargraph.core.query.QueryType;
+import net.stargraph.core.query.nli.QuestionAnalyzer;
+import net.stargraph.query.Language;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.regex.PatternSyntaxException;
+
+public final class ReloadRulesTest {
+
+    private Config config;
+    private Analyzers analyzers;
+
+    @BeforeMethod
+    public void before() {
+        config = ConfigFactory.load().getConfig("stargraph")
+                .withValue("annotator.preload", ConfigValueFactory.fromAnyRef(false));
+        analyzers = new Analyzers(config);
+    }
+
+    @Test
+    public void swapTest() {
+        QuestionAnalyzer former = analyzers.getQuestionAnalyzer(Language.EN);
+        Assert.assertEquals(analyzers.getRules().getQueryTypeMatcher(Language.EN).match("Is Obama a politician?"), QueryType.ASK);
+
+        analyzers.reload(withAskPattern("^[aA]re .+\\?$"));
+
+        Assert.assertNotSame(analyzers.getQuestionAnalyzer(Language.EN), former);
+        Assert.assertSame(analyzers.getQuestionAnalyzer(Language.EN), analyzers.getQuestionAnalyzer(Language.EN));
+        Assert.assertNull(analyzers.getRules().getQueryTypeMatcher(Language.EN).match("Is Obama a politician?"));
+        Assert.assertEquals(analyzers.getRules().getQueryTypeMatcher(Language.EN).match("Are you there?"), QueryType.ASK);
+    }
+
+    @Test
+    public void brokenRulesKeepFormerTest() {
+        QuestionAnalyzer former = analyzers.getQuestionAnalyzer(Language.EN);
+        try {
+            analyzers.reload(withAskPattern("^[iI]s (.+\\?$"));
+            Assert.fail("Invalid pattern accepted");
+        } catch (PatternSyntaxException e) {
+            Assert.assertSame(analyzers.getQuestionAnalyzer(Language.EN), former);
+        }
+    }
+
+    private Config withAskPattern(String pattern) {
+        return config.withValue("rules.query-pattern.en.ASK", ConfigValueFactory.fromIterable(Collections.singletonList(pattern)));
+    }
+}
@@ -0,0 +1,135 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.graph.ModifiableGraphSearchParams;
+import net.stargraph.core.query.QueryResponse;
+import net.stargraph.core.query.ResponseCache;
+import net.stargraph.core.query.response.NoResponse;
+import net.stargraph.query.InteractionMode;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class ResponseCacheTest {
+
+    private ResponseCache cache;
+
+    @BeforeMethod
+    public void before() {
+        cache = new ResponseCache("test", ConfigFactory.load().getConfig("stargraph.query.cache"));
+    }
+
+    @Test
+    public void normalizedHitTest() {
+        AtomicInteger calls = new AtomicInteger();
+        ModifiableGraphSearchParams params = ModifiableGraphSearchParams.create();
+
+        QueryResponse first = cache.get("Who is  the wife of Obama?", params, () -> answer(calls));
+        QueryResponse second = cache.get(" Who is the wife of\nObama? ", params, () -> answer(calls));
+
+        Assert.assertSame(second, first);
+        Assert.assertEquals(calls.get(), 1);
+
+        cache.get("Who is the wife of Obama?", ModifiableGraphSearchParams.create().maxRows(1), () -> answer(calls));
+        Assert.assertEquals(calls.get(), 2, "Row limits must not share answers");
+
+        cache.invalidateAll();
+        cache.get("Who is the wife of Obama?", params, () -> answer(calls));
+        Assert.assertEquals(calls.get(), 3);
+    }
+
+    @Test
+    public void questionNormalizationTest() {
+        Assert.assertEquals(ResponseCache.normalize(" What's  the #1\tsong of\nQueen? "), "What's the #1 song of Queen?");
+
+        AtomicInteger calls = new AtomicInteger();
+        ModifiableGraphSearchParams params = ModifiableGraphSearchParams.create();
+        cache.get("Who's  the #1?", params, () -> answer(calls));
+        cache.get("Who's the #1?", params, () -> answer(calls));
+        Assert.assertEquals(calls.get(), 1);
+    }
+
+    @Test
+    public void truncatedNotKeptTest() {
+        AtomicInteger calls = new AtomicInteger();
+        ModifiableGraphSearchParams params = ModifiableGraphSearchParams.create();
+
+        for (int i = 0; i < 2; i++) {
+            cache.get("SELECT * WHERE { ?s ?p ?o }", params, () -> {
+                QueryResponse response = answer(calls);
+                response.setTruncated(true);
+                return response;
+            });
+        }
+
+        Assert.assertEquals(calls.get(), 2);
+    }
+
+    @Test
+    public void stampedeTest() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<QueryResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("Who directed Inception?", ModifiableGraphSearchParams.create(), () -> {
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return answer(calls);
+                    });
+                }));
+            }
+
+            start.countDown();
+            for (Future<QueryResponse> future : futures) {
+                Assert.assertSame(future.get(5, TimeUnit.SECONDS), futures.get(0).get());
+            }
+            Assert.assertEquals(calls.get(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static QueryResponse answer(AtomicInteger calls) {
+        calls.incrementAndGet();
+        return new NoResponse(InteractionMode.NLI, "q");
+    }
+}
@@ -0,0 +1,100 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.query.Rules;
+import net.stargraph.core.query.nli.DataModelType;
+import net.stargraph.core.query.nli.DataModelTypePattern;
+import net.stargraph.core.query.nli.RuleIndex;
+import net.stargraph.query.Language;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The index must never miss a rule that matches, otherwise the analysis changes.
+ */
+public final class RuleIndexTest {
+
+    private List<DataModelTypePattern> rules;
+    private RuleIndex index;
+
+    @BeforeClass
+    public void beforeClass() {
+        Rules allRules = new Rules(ConfigFactory.load().getConfig("stargraph"));
+        rules = allRules.getDataModelTypeRules(Language.EN);
+        index = allRules.getDataModelTypeIndex(Language.EN);
+    }
+
+    @Test
+    public void sameAsScanningTest() {
+        List<String> vocabulary = rules.stream()
+                .flatMap(r -> Arrays.stream(r.getPattern().replaceAll("[.*()]", " ").trim().split("\\s+")))
+                .distinct().collect(Collectors.toList());
+        vocabulary.addAll(Arrays.asList("NNPS", "NN", "VB", "INSTANCE_1", "CLASS_1", "Obama", "?"));
+
+        Random random = new Random(31);
+        for (int i = 0; i < 5000; i++) {
+            String question = randomSentence(random, vocabulary);
+            String posTags = randomSentence(random, vocabulary);
+
+            List<DataModelTypePattern> expected = rules.stream()
+                    .filter(r -> r.getCompiledPattern().matcher(question).matches()
+                            || r.getCompiledPattern().matcher(posTags).matches())
+                    .collect(Collectors.toList());
+
+            List<DataModelTypePattern> candidates = index.candidates(question, posTags);
+            Assert.assertTrue(candidates.containsAll(expected), question + " / " + posTags);
+            Assert.assertEquals(candidates.stream().filter(expected::contains).collect(Collectors.toList()), expected);
+        }
+    }
+
+    @Test
+    public void positionTest() {
+        RuleIndex idx = new RuleIndex(Arrays.asList(
+                new DataModelTypePattern(".*(NNP).*", DataModelType.INSTANCE),
+                new DataModelTypePattern(".* (did) .*", DataModelType.STOP),
+                new DataModelTypePattern("^WP (VBZ|VBD) .*", DataModelType.VARIABLE)));
+
+        Assert.assertEquals(idx.candidates("WP VBZ NNPS").size(), 2);
+        Assert.assertEquals(idx.candidates("Who didn't").size(), 1);
+        Assert.assertEquals(idx.candidates("Who did it").size(), 2);
+    }
+
+    private static String randomSentence(Random random, List<String> vocabulary) {
+        int size = 1 + random.nextInt(8);
+        StringJoiner joiner = new StringJoiner(" ");
+        for (int i = 0; i < size; i++) {
+            joiner.add(vocabulary.get(random.nextInt(vocabulary.size())));
+        }
+        return joiner.toString();
+    }
+}
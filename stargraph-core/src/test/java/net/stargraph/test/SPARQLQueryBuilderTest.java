@@ -0,0 +1,137 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.core.Namespace;
+import net.stargraph.core.query.QueryType;
+import net.stargraph.core.query.SPARQLQueryBuilder;
+import net.stargraph.core.query.TriplePattern;
+import net.stargraph.core.query.nli.DataModelBinding;
+import net.stargraph.core.query.nli.DataModelType;
+import net.stargraph.core.query.nli.QueryPlanPatterns;
+import net.stargraph.model.ClassEntity;
+import net.stargraph.model.InstanceEntity;
+import net.stargraph.model.PropertyEntity;
+import net.stargraph.rank.Score;
+import org.apache.jena.query.*;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Queries built from the algebra, candidates of a binding must come as VALUES of a single triple.
+ */
+public final class SPARQLQueryBuilderTest {
+    private static final String DBR = "http://dbpedia.org/resource/";
+    private static final String DBO = "http://dbpedia.org/ontology/";
+
+    private Model model;
+
+    @BeforeClass
+    public void beforeClass() {
+        model = ModelFactory.createDefaultModel();
+        Resource obama = model.createResource(DBR + "Barack_Obama");
+        Resource michelle = model.createResource(DBR + "Michelle_Obama");
+        Resource malia = model.createResource(DBR + "Malia_Obama");
+        Resource person = model.createResource(DBO + "Person");
+        obama.addProperty(model.createProperty(DBO + "spouse"), michelle);
+        obama.addProperty(model.createProperty(DBO + "child"), malia);
+        obama.addProperty(model.createProperty(DBO + "birthPlace"), model.createResource(DBR + "Honolulu"));
+        michelle.addProperty(RDF.type, person);
+        malia.addProperty(RDF.type, person);
+    }
+
+    @Test
+    public void valuesForCandidatesTest() {
+        Query query = create(QueryType.SELECT).buildQuery();
+
+        Assert.assertTrue(query.isSelectType());
+        Assert.assertEquals(query.getResultVars(), Collections.singletonList("VAR_1"));
+        String text = query.serialize();
+        Assert.assertTrue(text.contains("VALUES ?CANDIDATE_1"), text);
+        Assert.assertEquals(count(text, "<" + DBO + "spouse>"), 1, text);
+        Assert.assertEquals(count(text, "<" + DBR + "Barack_Obama>"), 1, "Single candidates stay in the triple");
+
+        Set<String> answers = new HashSet<>();
+        try (QueryExecution exec = QueryExecutionFactory.create(QueryFactory.create(text), model)) {
+            exec.execSelect().forEachRemaining(s -> answers.add(s.getResource("VAR_1").getURI()));
+        }
+        Assert.assertEquals(answers, new HashSet<>(Arrays.asList(DBR + "Michelle_Obama", DBR + "Malia_Obama")));
+    }
+
+    @Test
+    public void askTest() {
+        Query query = create(QueryType.ASK).buildQuery();
+        Assert.assertTrue(query.isAskType());
+        try (QueryExecution exec = QueryExecutionFactory.create(query, model)) {
+            Assert.assertTrue(exec.execAsk());
+        }
+    }
+
+    @Test
+    public void aggregateTest() {
+        Query query = create(QueryType.AGGREGATE).buildQuery();
+        Assert.assertTrue(query.isSelectType());
+        Assert.assertEquals(query.getResultVars(), Collections.singletonList("COUNT"));
+        try (QueryExecution exec = QueryExecutionFactory.create(query, model)) {
+            Assert.assertEquals(exec.execSelect().next().getLiteral("COUNT").getInt(), 2);
+        }
+    }
+
+    private SPARQLQueryBuilder create(QueryType queryType) {
+        DataModelBinding clazz = new DataModelBinding(DataModelType.CLASS, "person", "CLASS_1");
+        DataModelBinding property = new DataModelBinding(DataModelType.PROPERTY, "family", "PROPERTY_1");
+        DataModelBinding instance = new DataModelBinding(DataModelType.INSTANCE, "Barack Obama", "INSTANCE_1");
+
+        QueryPlanPatterns plan = new QueryPlanPatterns("CLASS_1 PROPERTY_1 INSTANCE_1",
+                Arrays.asList(new TriplePattern("?VAR_1 TYPE CLASS_1"), new TriplePattern("INSTANCE_1 PROPERTY_1 ?VAR_1")));
+        SPARQLQueryBuilder builder = new SPARQLQueryBuilder(queryType, plan, Arrays.asList(clazz, property, instance));
+        builder.setNS(Namespace.createDefault());
+
+        builder.add(clazz, Collections.singletonList(new Score(new ClassEntity(DBO + "Person", "person", false), 1)));
+        builder.add(property, Arrays.asList(
+                new Score(new PropertyEntity(DBO + "spouse", "spouse"), 0.9),
+                new Score(new PropertyEntity(DBO + "child", "child"), 0.8),
+                new Score(new PropertyEntity(DBO + "spouse", "spouse"), 0.7)));
+        builder.add(instance, Collections.singletonList(new Score(new InstanceEntity(DBR + "Barack_Obama", "Barack Obama"), 1)));
+        return builder;
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -68,4 +68,20 @@ public final class SemanticRoleLabelingTest {
         Assert.assertEquals(builder.getBinding("PROPERTY_1").getTerm(), "directed");
     }
 
+    @Test
+    public void repeatedTagsTest() {
+        QuestionAnalysis analyzed = analyzer.analyse("Is Michelle Obama the wife of Barack Obama?");
+        SPARQLQueryBuilder builder = analyzed.getSPARQLQueryBuilder();
+        Assert.assertEquals(builder.getTriplePatterns().getPlanId(), "PROPERTY_1 INSTANCE_1 CLASS_1 INSTANCE_2");
+        Assert.assertEquals(builder.getBinding("INSTANCE_1").getTerm(), "Michelle Obama");
+        Assert.assertEquals(builder.getBinding("INSTANCE_2").getTerm(), "Barack Obama");
+    }
+
+    @Test
+    public void lexicalRuleOnTagsTest() {
+        QuestionAnalysis analyzed = analyzer.analyse("Which rivers are longer than the Amazon?");
+        SPARQLQueryBuilder builder = analyzed.getSPARQLQueryBuilder();
+        Assert.assertEquals(builder.getTriplePatterns().getPlanId(), "CLASS_1 PROPERTY_1 OPERATION_1 INSTANCE_1");
+        Assert.assertEquals(builder.getBinding("INSTANCE_1").getTerm(), "Amazon");
+    }
 }
@@ -0,0 +1,134 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.core.query.Speculation;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public final class SpeculationTest {
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void beforeClass() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public void afterClass() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void scoreOrderTest() {
+        List<Callable<String>> candidates = Arrays.asList(
+                () -> "none",
+                () -> {
+                    Thread.sleep(200);
+                    return "answer 1";
+                },
+                () -> "answer 2");
+
+        Speculation<String> speculation = new Speculation<>(executor, s -> s.startsWith("answer"));
+        // the faster candidate #2 does not win over the better scored #1
+        Assert.assertEquals(speculation.run(candidates, i -> {}), "answer 1");
+        Assert.assertEquals(speculation.getWinner(), 1);
+    }
+
+    @Test
+    public void firstAnswerWinsTest() throws Exception {
+        final String caller = Thread.currentThread().getName();
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        List<Integer> cancelled = Collections.synchronizedList(new ArrayList<>());
+        List<Callable<String>> candidates = Arrays.asList(
+                () -> {
+                    // let the other one start
+                    Thread.sleep(100);
+                    return "answer on " + Thread.currentThread().getName();
+                },
+                () -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return "answer too late";
+                });
+
+        Speculation<String> speculation = new Speculation<>(executor, s -> s.startsWith("answer"));
+        Assert.assertEquals(speculation.run(candidates, cancelled::add), "answer on " + caller);
+        Assert.assertEquals(speculation.getWinner(), 0);
+        Assert.assertEquals(cancelled, Collections.singletonList(1));
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS), "not interrupted");
+    }
+
+    @Test
+    public void saturatedExecutorTest() {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> cancelled = Collections.synchronizedList(new ArrayList<>());
+        List<Callable<String>> candidates = Arrays.asList(
+                () -> { ran.add("0"); return "none"; },
+                () -> { ran.add("1"); return "answer"; },
+                () -> { ran.add("2"); return "answer"; });
+
+        Speculation<String> speculation = new Speculation<>(task -> {
+            throw new RejectedExecutionException();
+        }, s -> s.startsWith("answer"));
+        // all run in turn on the calling thread, those after the answer never do
+        Assert.assertEquals(speculation.run(candidates, cancelled::add), "answer");
+        Assert.assertEquals(ran, Arrays.asList("0", "1"));
+        Assert.assertEquals(cancelled, Collections.singletonList(2));
+    }
+
+    @Test
+    public void noAnswerTest() {
+        List<Callable<String>> candidates = Arrays.asList(
+                () -> { throw new IllegalStateException("failed"); },
+                () -> "none 1",
+                () -> "none 2");
+
+        Speculation<String> speculation = new Speculation<>(executor, s -> s.startsWith("answer"));
+        Assert.assertEquals(speculation.run(candidates, i -> {}), "none 1");
+        Assert.assertEquals(speculation.getWinner(), -1);
+
+        candidates = Collections.singletonList(() -> { throw new IllegalStateException("failed"); });
+        Assert.assertNull(new Speculation<String>(executor, s -> true).run(candidates, i -> {}));
+    }
+}
@@ -0,0 +1,94 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-core
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.core.query.Rules;
+import net.stargraph.core.query.nli.StopPatternMatcher;
+import net.stargraph.query.Language;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * The trie of literal prefixes must find the same patterns, in the same order, as trying each of them.
+ */
+public final class StopPatternMatcherTest {
+
+    @Test
+    public void sameAsScanningTest() {
+        List<Pattern> patterns = new ArrayList<>(new Rules(ConfigFactory.load().getConfig("stargraph")).getStopRules(Language.EN));
+        patterns.add(3, Pattern.compile("^(.+) please$"));
+        patterns.add(Pattern.compile("^(What|Who) .+$"));
+        patterns.add(Pattern.compile("^(what is) .+$", Pattern.CASE_INSENSITIVE));
+        StopPatternMatcher matcher = new StopPatternMatcher(patterns);
+
+        String[] words = {"What", "is", "the", "Who", "was", "Give", "me", "a", "list", "of", "How", "many",
+                "what", "Obama", "please", "", " ", "\n", "?"};
+
+        Random random = new Random(23);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder text = new StringBuilder();
+            int size = random.nextInt(7);
+            for (int j = 0; j < size; j++) {
+                text.append(words[random.nextInt(words.length)]);
+                if (j < size - 1 || random.nextBoolean()) {
+                    text.append(' ');
+                }
+            }
+            String t = text.toString();
+            int from = random.nextInt(patterns.size());
+            Assert.assertEquals(matcher.next(t, from), scan(patterns, t, from), "'" + t + "' from " + from);
+        }
+    }
+
+    @Test
+    public void declaredOrderTest() {
+        StopPatternMatcher matcher = new StopPatternMatcher(Arrays.asList(
+                Pattern.compile("^(What) .+$"), Pattern.compile("^(What is the) .+$"), Pattern.compile("^(What) .+$")));
+
+        Assert.assertEquals(matcher.next("What is the capital?", 0), 0);
+        Assert.assertEquals(matcher.next("What is the capital?", 1), 1);
+        Assert.assertEquals(matcher.next("What is the", 1), 2);
+        Assert.assertEquals(matcher.next("What", 0), -1);
+        Assert.assertEquals(matcher.next(" What is it?", 0), -1);
+    }
+
+    private static int scan(List<Pattern> patterns, String text, int from) {
+        for (int i = from; i < patterns.size(); i++) {
+            if (patterns.get(i).matcher(text).matches()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -26,21 +26,34 @@ package net.stargraph.model;
  * ==========================License-End===============================
  */
 
+import net.stargraph.rank.NGramSignature;
+
 import java.util.Collection;
 
 public final class InstanceEntity extends LabeledEntity implements ContextId {
     private Collection<String> otherValues;
+    private NGramSignature signature;
 
     public InstanceEntity(String id, String value) {
         this(id, value, null);
     }
 
     public InstanceEntity(String id, String value, Collection<String> otherValues) {
+        this(id, value, otherValues, null);
+    }
+
+    public InstanceEntity(String id, String value, Collection<String> otherValues, NGramSignature signature) {
         super(id, value);
         this.otherValues = otherValues;
+        this.signature = signature;
     }
 
     public Collection<String> getOtherValues() {
         return otherValues;
     }
+
+    @Override
+    public NGramSignature getSignature() {
+        return signature;
+    }
 }
@@ -28,6 +28,7 @@ package net.stargraph.model;
 
 import net.stargraph.data.processor.Hashable;
 import net.stargraph.model.wordnet.WNTuple;
+import net.stargraph.rank.NGramSignature;
 import net.stargraph.rank.Rankable;
 
 import java.util.Collection;
@@ -39,6 +40,7 @@ public final class PropertyEntity implements Hashable, Rankable {
     private Collection<WNTuple> hypernyms;
     private Collection<WNTuple> hyponyms;
     private Collection<WNTuple> synonyms;
+    private NGramSignature signature;
 
     public PropertyEntity(String id, String value) {
         this(id, value, null, null, null);
@@ -48,6 +50,14 @@ public final class PropertyEntity implements Hashable, Rankable {
                           Collection<WNTuple> hypernyms,
                           Collection<WNTuple> hyponyms,
                           Collection<WNTuple> synonyms) {
+        this(id, value, hypernyms, hyponyms, synonyms, null);
+    }
+
+    public PropertyEntity(String id, String value,
+                          Collection<WNTuple> hypernyms,
+                          Collection<WNTuple> hyponyms,
+                          Collection<WNTuple> synonyms,
+                          NGramSignature signature) {
 
         if (id == null || id.isEmpty()) {
             throw new IllegalArgumentException("`id` is required");
@@ -62,6 +72,7 @@ public final class PropertyEntity implements Hashable, Rankable {
         this.hypernyms = hypernyms;
         this.hyponyms = hyponyms;
         this.synonyms = synonyms;
+        this.signature = signature;
     }
 
     public Collection<WNTuple> getHypernyms() {
@@ -86,6 +97,11 @@ public final class PropertyEntity implements Hashable, Rankable {
         return value;
     }
 
+    @Override
+    public NGramSignature getSignature() {
+        return signature;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
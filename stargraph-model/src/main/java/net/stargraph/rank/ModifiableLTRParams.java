@@ -0,0 +1,107 @@
+package net.stargraph.rank;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Parameters of the linear learning to rank model: one weight per {@link LTRFeature} plus a bias,
+ * as trained offline from the logged feature vectors.
+ */
+public final class ModifiableLTRParams extends ModifiableRankParams {
+    private float[] weights;
+    private float bias;
+    private ModifiableIndraParams embeddingParams;
+    private Map<String, Double> popularity;
+
+    public ModifiableLTRParams(Threshold threshold) {
+        super(threshold, RankingModel.LTR);
+        this.weights = new float[LTRFeature.values().length];
+        this.popularity = Collections.emptyMap();
+    }
+
+    public ModifiableLTRParams weight(LTRFeature feature, float weight) {
+        this.weights[feature.ordinal()] = weight;
+        return this;
+    }
+
+    public ModifiableLTRParams bias(float bias) {
+        this.bias = bias;
+        return this;
+    }
+
+    /**
+     * Distributional model used to compute the {@link LTRFeature#EMBEDDING} feature.
+     */
+    public ModifiableLTRParams embedding(ModifiableIndraParams embeddingParams) {
+        this.embeddingParams = Objects.requireNonNull(embeddingParams);
+        return this;
+    }
+
+    /**
+     * Popularity of the candidates by id, expected in [0, 1].
+     */
+    public ModifiableLTRParams popularity(Map<String, Double> popularity) {
+        this.popularity = Objects.requireNonNull(popularity);
+        return this;
+    }
+
+    public float getWeight(LTRFeature feature) {
+        return weights[feature.ordinal()];
+    }
+
+    public float[] getWeights() {
+        return weights;
+    }
+
+    public float getBias() {
+        return bias;
+    }
+
+    public ModifiableIndraParams getEmbeddingParams() {
+        return embeddingParams;
+    }
+
+    public Map<String, Double> getPopularity() {
+        return popularity;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("LTRParams{");
+        for (LTRFeature feature : LTRFeature.values()) {
+            sb.append(feature.configName()).append('=').append(getWeight(feature)).append(", ");
+        }
+        return sb.append("bias=").append(bias)
+                .append(", embedding=").append(embeddingParams != null ? embeddingParams.getRankingModel() : null)
+                .append(", threshold=").append(getThreshold())
+                .append(getLimit() > 0 ? ", limit=" + getLimit() : "")
+                .append('}').toString();
+    }
+}
@@ -30,14 +30,16 @@ public class ModifiableRankParams {
 
     private Threshold threshold;
     private RankingModel rankingModel;
+    private int limit;
 
     public ModifiableRankParams() {
-        //
+        this.limit = -1;
     }
 
     public ModifiableRankParams(Threshold threshold, RankingModel rankingModel) {
         this.threshold = threshold;
         this.rankingModel = rankingModel;
+        this.limit = -1;
     }
 
     public final ModifiableRankParams rankingModel(RankingModel model) {
@@ -50,6 +52,14 @@ public class ModifiableRankParams {
         return this;
     }
 
+    /**
+     * Keeps only the top entries. Rankers aware of this limit can skip candidates that can't be part of it.
+     */
+    public final ModifiableRankParams limit(int maxEntries) {
+        this.limit = maxEntries;
+        return this;
+    }
+
     public final Threshold getThreshold() {
         return threshold;
     }
@@ -58,9 +68,13 @@ public class ModifiableRankParams {
         return rankingModel;
     }
 
+    public final int getLimit() {
+        return limit;
+    }
+
     @Override
     public String toString() {
-        return "RankParams{" + rankingModel + ", " + threshold + "}";
+        return "RankParams{" + rankingModel + ", " + threshold + (limit > 0 ? ", limit=" + limit : "") + "}";
     }
 
 }
@@ -0,0 +1,139 @@
+package net.stargraph.rank;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Set of character n-grams of a text, kept as a sorted array of unique hashes.
+ * <p>
+ * For n = 1 the hashes are the characters themselves, thus there are no collisions.
+ * Longer n-grams are folded into a single int and texts shorter than n yield one gram with the whole text.
+ */
+public final class NGramSignature implements Serializable {
+    private int n;
+    private int[] grams;
+
+    public NGramSignature(int n, int[] grams) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive.");
+        }
+        this.n = n;
+        this.grams = Objects.requireNonNull(grams);
+    }
+
+    public static NGramSignature of(CharSequence text, int n) {
+        Objects.requireNonNull(text);
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive.");
+        }
+
+        final int len = text.length();
+        if (len == 0) {
+            return new NGramSignature(n, new int[0]);
+        }
+
+        final int window = Math.min(n, len);
+        int[] grams = new int[len - window + 1];
+        for (int i = 0; i < grams.length; i++) {
+            int h = 0;
+            for (int j = i; j < i + window; j++) {
+                h = 31 * h + text.charAt(j);
+            }
+            grams[i] = h;
+        }
+
+        Arrays.sort(grams);
+        int size = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[size - 1]) {
+                grams[size++] = grams[i];
+            }
+        }
+
+        return new NGramSignature(n, size == grams.length ? grams : Arrays.copyOf(grams, size));
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public int[] getGrams() {
+        return grams;
+    }
+
+    /**
+     * Jaccard similarity by merging both sorted arrays. Signatures of different n-gram sizes are not comparable.
+     */
+    public double jaccard(NGramSignature other) {
+        if (other.n != n) {
+            throw new IllegalArgumentException("Can't compare signatures of different n (" + n + " and " + other.n + ")");
+        }
+
+        final int[] a = grams;
+        final int[] b = other.grams;
+
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+
+        int i = 0, j = 0, intersection = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                intersection++;
+                i++;
+                j++;
+            }
+        }
+
+        return (double) intersection / (a.length + b.length - intersection);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NGramSignature that = (NGramSignature) o;
+        return n == that.n && Arrays.equals(grams, that.grams);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * n + Arrays.hashCode(grams);
+    }
+
+    @Override
+    public String toString() {
+        return "NGramSignature{n=" + n + ", grams=" + grams.length + "}";
+    }
+}
@@ -33,4 +33,11 @@ public interface Rankable extends Serializable {
     String getValue();
 
     String getId();
+
+    /**
+     * N-gram signature of the value computed at index time, if any.
+     */
+    default NGramSignature getSignature() {
+        return null;
+    }
 }
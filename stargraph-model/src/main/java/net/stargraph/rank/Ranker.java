@@ -30,4 +30,8 @@ public interface Ranker {
 
     Scores score(Scores inputScores, Rankable target);
 
+    default Scores score(Scores inputScores, Rankable target, ModifiableRankParams rankParams) {
+        return score(inputScores, target);
+    }
+
 }
@@ -26,6 +26,8 @@ package net.stargraph.rank;
  * ==========================License-End===============================
  */
 
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigValue;
 import net.stargraph.StarGraphException;
 import net.stargraph.rank.impl.*;
 import org.slf4j.Logger;
@@ -33,36 +35,103 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entry point of the ranking models.
+ * <p>
+ * Each {@link RankingModel} is served by a single {@link Ranker} instance, thus implementations must be thread-safe.
+ * Built-in rankers can be replaced through {@link #register(RankingModel, Ranker)} or the configuration
+ * (see {@link #configure(Config)}).
+ */
 public final class Rankers {
     private static Logger logger = LoggerFactory.getLogger(Rankers.class);
     private static Marker marker = MarkerFactory.getMarker("rank");
 
+    private static Map<RankingModel, Ranker> registered = new ConcurrentHashMap<>();
+    private static Map<RankingModel, RankerStats> stats = new ConcurrentHashMap<>();
+
+    static {
+        IndraRanker indraRanker = new IndraRanker();
+        registered.put(RankingModel.JACCARD, new JaccardRanker());
+        registered.put(RankingModel.JAROWINKLER, new JarowinklerRanker());
+        registered.put(RankingModel.LEVENSHTEIN, new LevenshteinRanker());
+        registered.put(RankingModel.FUZZY, new FuzzyRanker());
+        registered.put(RankingModel.W2V, indraRanker);
+        registered.put(RankingModel.ESA, indraRanker);
+        registered.put(RankingModel.LTR, new LinearRanker());
+    }
+
     public static Scores apply(Scores inputScores, ModifiableRankParams rankParams, String target) {
         return apply(inputScores, rankParams, asRankable(target));
     }
 
     public static Scores apply(Scores inputScores, ModifiableRankParams rankParams, Rankable target) {
         logger.info(marker, "Applying {} on {} entries.", rankParams, inputScores.size());
-        Ranker ranker = createRanker(rankParams);
-        Scores rescores = ranker.score(inputScores, target);
-        return ThresholdFilter.filter(rescores, rankParams.getThreshold());
+        Ranker ranker = getRanker(rankParams.getRankingModel());
+
+        long start = System.nanoTime();
+        Scores rescores = ranker.score(inputScores, target, rankParams);
+        stats.computeIfAbsent(rankParams.getRankingModel(), m -> new RankerStats())
+                .record(inputScores.size(), System.nanoTime() - start);
+
+        if (rescores == inputScores) {
+            // Never discard from the caller's scores.
+            return ThresholdFilter.filter(rescores, rankParams.getThreshold());
+        }
+        // Rescored entries are already ours, the threshold is applied on them without a copy.
+        return ThresholdFilter.filterInPlace(rescores, rankParams.getThreshold());
+    }
+
+    /**
+     * Replaces the ranker serving the given model.
+     */
+    public static void register(RankingModel model, Ranker ranker) {
+        Ranker previous = registered.put(Objects.requireNonNull(model), Objects.requireNonNull(ranker));
+        stats.remove(model);
+        logger.info(marker, "{} served by {} (was {}).", model, ranker.getClass().getName(),
+                previous != null ? previous.getClass().getName() : null);
     }
 
-    private static Ranker createRanker(ModifiableRankParams params) {
-        switch (params.getRankingModel()) {
-            case JACCARD:
-                return new JaccardRanker();
-            case JAROWINKLER:
-                return new JarowinklerRanker();
-            case LEVENSHTEIN:
-                return new LevenshteinRanker();
-            case FUZZY:
-                return new FuzzyRanker();
-            case W2V:
-            case ESA:
-                return new IndraRanker((ModifiableIndraParams) params);
+    /**
+     * Registers the rankers declared as "MODEL = class name" entries.
+     * Classes must provide a public no-arg constructor.
+     */
+    public static void configure(Config config) {
+        for (Map.Entry<String, ConfigValue> entry : Objects.requireNonNull(config).root().entrySet()) {
+            RankingModel model;
+            try {
+                model = RankingModel.valueOf(entry.getKey().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new StarGraphException("Unknown ranking model '" + entry.getKey() + "'", e);
+            }
+
+            String className = (String) entry.getValue().unwrapped();
+            try {
+                Class<?> c = Class.forName(className);
+                register(model, (Ranker) c.getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new StarGraphException("Fail to create ranker '" + className + "'", e);
+            }
         }
-        throw new StarGraphException("Unknown Ranker!");
+    }
+
+    public static Ranker getRanker(RankingModel model) {
+        Ranker ranker = registered.get(Objects.requireNonNull(model));
+        if (ranker == null) {
+            throw new StarGraphException("Unknown Ranker!");
+        }
+        return ranker;
+    }
+
+    /**
+     * Latency of each ranking model since start up or its last registration.
+     */
+    public static Map<RankingModel, RankerStats> getStats() {
+        return Collections.unmodifiableMap(stats);
     }
 
     private static Rankable asRankable(String term) {
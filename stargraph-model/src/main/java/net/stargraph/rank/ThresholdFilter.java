@@ -32,9 +32,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
-import java.util.Iterator;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static net.stargraph.rank.Threshold.ThresholdType.MIN;
 
@@ -49,58 +47,97 @@ public final class ThresholdFilter {
             return inputScores;
         }
 
-        Scores filtered = new Scores();
+        Scores filtered;
 
         switch (threshold.type) {
             case AUTO:
-
                 if (inputScores.size() < 3) {
                     return inputScores;
                 }
+                filtered = new Scores(inputScores.subList(0, autoCut(inputScores)));
+                break;
 
-                Iterator<Score> it = inputScores.iterator();
-                Score previous = it.next();
-                double max = Double.MIN_VALUE;
-
-                while (it.hasNext()) {
-                    Score curr = it.next();
-                    double diff = previous.getValue() - curr.getValue();
-                    if (diff > max) {
-                        max = diff;
+            case MIN:
+            case MAX:
+                filtered = new Scores(inputScores.size());
+                for (Score score : inputScores) {
+                    if (accept(threshold, score)) {
+                        filtered.add(score);
                     }
-                    previous = curr;
                 }
+                break;
 
-                logger.debug(marker, "AUTO threshold value is {}", max);
+            default:
+                throw new StarGraphException("Unknown Threshold Type");
+        }
 
-                it = inputScores.iterator();
-                previous = it.next();
-                filtered.add(previous);
+        return done(filtered, threshold);
+    }
 
-                while (it.hasNext()) {
-                    Score curr = it.next();
-                    double diff = previous.getValue() - curr.getValue();
-                    if (diff < max) {
-                        filtered.add(curr);
-                    } else {
-                        break;
-                    }
-                    previous = curr;
-                }
+    /**
+     * Same as {@link #filter(Scores, Threshold)} but discards the entries from the given scores,
+     * meant for the scores freshly allocated by a ranker.
+     */
+    static Scores filterInPlace(Scores scores, Threshold threshold) {
+        if (Objects.requireNonNull(scores).isEmpty()) {
+            logger.warn(marker, "Nothing to filter.");
+            return scores;
+        }
 
+        switch (threshold.type) {
+            case AUTO:
+                if (scores.size() < 3) {
+                    return scores;
+                }
+                scores.subList(autoCut(scores), scores.size()).clear();
                 break;
 
             case MIN:
             case MAX:
-                filtered = new Scores(inputScores.stream().
-                        filter(s -> threshold.type == MIN ? s.getValue() > threshold.value : s.getValue() < threshold.value)
-                        .collect(Collectors.toList()));
+                scores.removeIf(score -> !accept(threshold, score));
                 break;
 
             default:
                 throw new StarGraphException("Unknown Threshold Type");
         }
 
+        return done(scores, threshold);
+    }
+
+    /**
+     * Finds in one pass where the largest gap between two consecutive scores is.
+     * Only positive gaps count, thus the scores are kept untouched when none is found.
+     *
+     * @return how many leading entries are kept.
+     */
+    private static int autoCut(Scores scores) {
+        double max = 0;
+        int cut = scores.size();
+        int nanCut = scores.size();
+
+        double previous = scores.get(0).getValue();
+        for (int i = 1; i < scores.size(); i++) {
+            double curr = scores.get(i).getValue();
+            double diff = previous - curr;
+            if (diff > max) {
+                max = diff;
+                cut = i;
+            } else if (Double.isNaN(diff) && nanCut == scores.size()) {
+                // Not comparable, nothing goes after it.
+                nanCut = i;
+            }
+            previous = curr;
+        }
+
+        logger.debug(marker, "AUTO threshold value is {}", max);
+        return Math.min(cut, nanCut);
+    }
+
+    private static boolean accept(Threshold threshold, Score score) {
+        return threshold.type == MIN ? score.getValue() > threshold.value : score.getValue() < threshold.value;
+    }
+
+    private static Scores done(Scores filtered, Threshold threshold) {
         if (filtered.isEmpty()) {
             logger.warn(marker, "Nothing left. All filtered by ({})", threshold);
         }
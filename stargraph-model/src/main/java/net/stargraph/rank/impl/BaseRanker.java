@@ -26,6 +26,7 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
+import net.stargraph.rank.ModifiableRankParams;
 import net.stargraph.rank.Rankable;
 import net.stargraph.rank.Ranker;
 import net.stargraph.rank.Scores;
@@ -47,5 +48,18 @@ abstract class BaseRanker implements Ranker {
         return rescore;
     }
 
+    @Override
+    public final Scores score(Scores inputScores, Rankable target, ModifiableRankParams rankParams) {
+        logger.trace(marker, "Target: '{}', params: {}, input: {}", target.getValue(), rankParams, inputScores);
+        Scores rescore = doScore(inputScores, target, rankParams);
+        logger.trace(marker, "Target: '{}', output: {}", target.getValue(), rescore);
+        return rescore;
+    }
+
     abstract Scores doScore(Scores inputScores, Rankable target);
+
+    Scores doScore(Scores inputScores, Rankable target, ModifiableRankParams rankParams) {
+        // By default rankers are not aware of the ranking parameters.
+        return doScore(inputScores, target);
+    }
 }
@@ -0,0 +1,230 @@
+package net.stargraph.rank.impl;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Allocation free Levenshtein distance with an optional maximum distance (k) cutoff.
+ * <p>
+ * Short strings (up to 64 chars) go through the bit-parallel algorithm of Myers (Hyyrö's variant for the edit distance)
+ * while longer ones use a DP restricted to the diagonal band of width 2k+1 (Ukkonen).
+ * Both give up as soon as the distance is known to be greater than k. The working buffers are kept per thread.
+ */
+public final class EditDistance {
+    private static final int WORD_SIZE = Long.SIZE;
+    private static final int ALPHABET_SIZE = 256;
+
+    private static final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private EditDistance() {
+        //
+    }
+
+    /**
+     * Computes the exact Levenshtein distance between two sequences.
+     */
+    public static int levenshtein(CharSequence s, CharSequence t) {
+        return levenshtein(s, t, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Computes the Levenshtein distance between two sequences bounded by maxDistance.
+     *
+     * @return the exact distance when it is lower or equal than maxDistance, otherwise maxDistance + 1.
+     */
+    public static int levenshtein(CharSequence s, CharSequence t, int maxDistance) {
+        Objects.requireNonNull(s);
+        Objects.requireNonNull(t);
+
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative.");
+        }
+
+        // The shortest one is our pattern
+        if (s.length() > t.length()) {
+            CharSequence tmp = s;
+            s = t;
+            t = tmp;
+        }
+
+        final int n = s.length();
+        final int m = t.length();
+        // The distance is never greater than the longest length.
+        final int k = Math.min(maxDistance, m);
+
+        if (m - n > k) {
+            return k + 1;
+        }
+
+        if (n == 0) {
+            return m;
+        }
+
+        return n <= WORD_SIZE ? myers(s, t, k) : banded(s, t, k);
+    }
+
+    private static int myers(CharSequence pattern, CharSequence text, int k) {
+        final int m = pattern.length();
+        final int n = text.length();
+        final long[] peq = buffers.get().peq;
+
+        try {
+            for (int i = 0; i < m; i++) {
+                char c = pattern.charAt(i);
+                if (c < ALPHABET_SIZE) {
+                    peq[c] |= 1L << i;
+                }
+            }
+
+            final long last = 1L << (m - 1);
+            long pv = -1L;
+            long mv = 0L;
+            int score = m;
+
+            for (int j = 0; j < n; j++) {
+                long eq = match(peq, pattern, text.charAt(j));
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+
+                if ((ph & last) != 0) {
+                    score++;
+                } else if ((mh & last) != 0) {
+                    score--;
+                }
+
+                // Each remaining column can lower the score by one at most.
+                if (score - (n - j - 1) > k) {
+                    return k + 1;
+                }
+
+                ph = (ph << 1) | 1L;
+                mh = mh << 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+            }
+
+            return score <= k ? score : k + 1;
+        } finally {
+            for (int i = 0; i < m; i++) {
+                char c = pattern.charAt(i);
+                if (c < ALPHABET_SIZE) {
+                    peq[c] = 0L;
+                }
+            }
+        }
+    }
+
+    private static long match(long[] peq, CharSequence pattern, char c) {
+        if (c < ALPHABET_SIZE) {
+            return peq[c];
+        }
+
+        long eq = 0L;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == c) {
+                eq |= 1L << i;
+            }
+        }
+        return eq;
+    }
+
+    private static int banded(CharSequence s, CharSequence t, int k) {
+        final int n = s.length();
+        final int m = t.length();
+        final int over = k + 1;
+
+        Buffers b = buffers.get();
+        int[] p = b.row(0, n + 1);
+        int[] d = b.row(1, n + 1);
+
+        final int boundary = Math.min(n, k) + 1;
+        for (int i = 0; i < boundary; i++) {
+            p[i] = i;
+        }
+        Arrays.fill(p, boundary, n + 1, over);
+        Arrays.fill(d, 0, n + 1, over);
+
+        for (int j = 1; j <= m; j++) {
+            final char tj = t.charAt(j - 1);
+            d[0] = j <= k ? j : over;
+
+            final int min = Math.max(1, j - k);
+            final int max = Math.min(n, j + k);
+
+            if (min > max) {
+                return over;
+            }
+
+            if (min > 1) {
+                d[min - 1] = over;
+            }
+
+            int rowMin = d[0];
+            for (int i = min; i <= max; i++) {
+                int cost;
+                if (s.charAt(i - 1) == tj) {
+                    cost = p[i - 1];
+                } else {
+                    cost = 1 + Math.min(Math.min(d[i - 1], p[i]), p[i - 1]);
+                }
+                d[i] = Math.min(cost, over);
+                rowMin = Math.min(rowMin, d[i]);
+            }
+
+            if (max < n) {
+                d[max + 1] = over;
+            }
+
+            // Every path to the last cell crosses this row.
+            if (rowMin > k) {
+                return over;
+            }
+
+            int[] tmp = p;
+            p = d;
+            d = tmp;
+        }
+
+        return p[n] <= k ? p[n] : over;
+    }
+
+    private static final class Buffers {
+        final long[] peq = new long[ALPHABET_SIZE];
+        final int[][] rows = new int[2][64];
+
+        int[] row(int idx, int size) {
+            if (rows[idx].length < size) {
+                rows[idx] = new int[Math.max(size, rows[idx].length * 2)];
+            }
+            return rows[idx];
+        }
+    }
+}
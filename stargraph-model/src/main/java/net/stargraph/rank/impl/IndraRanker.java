@@ -26,7 +26,9 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
+import net.stargraph.StarGraphException;
 import net.stargraph.rank.ModifiableIndraParams;
+import net.stargraph.rank.ModifiableRankParams;
 import net.stargraph.rank.Rankable;
 import net.stargraph.rank.Score;
 import net.stargraph.rank.Scores;
@@ -48,26 +50,45 @@ public final class IndraRanker extends BaseRanker {
     private ModifiableIndraParams params;
     private Client client;
 
+    /**
+     * Shared instance, the Indra parameters come with each ranking call.
+     */
+    public IndraRanker() {
+        client = ClientBuilder.newClient().register(JacksonFeature.class);
+    }
 
     public IndraRanker(ModifiableIndraParams params) {
+        this();
         this.params = Objects.requireNonNull(params);
-        client = ClientBuilder.newClient().register(JacksonFeature.class);
     }
 
     @Override
     Scores doScore(Scores inputScores, Rankable target) {
+        if (params == null) {
+            throw new StarGraphException("Indra parameters are required.");
+        }
+        return doScore(inputScores, target, params);
+    }
+
+    @Override
+    Scores doScore(Scores inputScores, Rankable target, ModifiableRankParams rankParams) {
+        if (!(rankParams instanceof ModifiableIndraParams)) {
+            throw new StarGraphException("Indra parameters are required, got: " + rankParams);
+        }
+        ModifiableIndraParams indraParams = (ModifiableIndraParams) rankParams;
+
         List<TextPair> pairs = inputScores.stream()
                 .map(score -> new TextPair(score.getRankableView().getValue(), target.getValue()))
                 .collect(Collectors.toList());
 
         RelatednessRequest request = new RelatednessRequest()
-                .corpus(params.getCorpus())
-                .language(params.getLanguage())
-                .scoreFunction(params.getScoreFunction())
-                .model(params.getRankingModel().name())
+                .corpus(indraParams.getCorpus())
+                .language(indraParams.getLanguage())
+                .scoreFunction(indraParams.getScoreFunction())
+                .model(indraParams.getRankingModel().name())
                 .pairs(pairs);
 
-        WebTarget webTarget = client.target(params.getUrl());
+        WebTarget webTarget = client.target(indraParams.getUrl());
         RelatednessResponse response = webTarget.request()
                 .post(Entity.entity(request, MediaType.APPLICATION_JSON_TYPE), RelatednessResponse.class);
 
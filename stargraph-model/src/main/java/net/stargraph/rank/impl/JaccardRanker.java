@@ -26,14 +26,46 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
-import org.apache.commons.text.beta.similarity.JaccardDistance;
+import net.stargraph.rank.NGramSignature;
+import net.stargraph.rank.Rankable;
 
+/**
+ * Jaccard distance over the character sets of both values.
+ * <p>
+ * Entries carrying a precomputed {@link NGramSignature} are compared straight from their sorted hashes,
+ * otherwise the signature is computed on the fly. Unigram signatures give the exact same scores
+ * as commons-text JaccardDistance (both similarity and distance rounded to two decimals).
+ */
 public final class JaccardRanker extends StringDistanceRanker {
-
-    private JaccardDistance jaccardDistance = new JaccardDistance();
+    private static final int DEFAULT_N = 1;
 
     @Override
     double computeStringDistance(CharSequence s1, CharSequence s2) {
-        return jaccardDistance.apply(s1, s2);
+        return distance(NGramSignature.of(s1, DEFAULT_N), NGramSignature.of(s2, DEFAULT_N));
+    }
+
+    @Override
+    Distance distanceTo(Rankable target) {
+        // Holds the last target signature, entries signed with a different n force a new one.
+        final NGramSignature[] targetSignature = {NGramSignature.of(target.getValue(), DEFAULT_N)};
+
+        return (entry, maxDistance) -> {
+            NGramSignature signature = entry.getSignature();
+            if (signature == null) {
+                signature = NGramSignature.of(entry.getValue(), DEFAULT_N);
+            }
+            if (signature.getN() != targetSignature[0].getN()) {
+                targetSignature[0] = NGramSignature.of(target.getValue(), signature.getN());
+            }
+            return distance(signature, targetSignature[0]);
+        };
+    }
+
+    private static double distance(NGramSignature s1, NGramSignature s2) {
+        return round(1 - round(s1.jaccard(s2)));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100d) / 100d;
     }
 }
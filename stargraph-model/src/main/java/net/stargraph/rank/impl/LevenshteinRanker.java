@@ -26,12 +26,16 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
-import org.apache.commons.lang3.StringUtils;
-
 public final class LevenshteinRanker extends StringDistanceRanker {
 
     @Override
     double computeStringDistance(CharSequence s1, CharSequence s2) {
-        return StringUtils.getLevenshteinDistance(s1, s2);
+        return EditDistance.levenshtein(s1, s2);
+    }
+
+    @Override
+    double computeStringDistance(CharSequence s1, CharSequence s2, double maxDistance) {
+        int k = maxDistance >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.floor(maxDistance);
+        return EditDistance.levenshtein(s1, s2, k);
     }
 }
@@ -0,0 +1,140 @@
+package net.stargraph.rank.impl;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-model
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import net.stargraph.StarGraphException;
+import net.stargraph.rank.*;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static net.stargraph.rank.LTRFeature.*;
+
+/**
+ * Learning to rank with a linear model over the {@link LTRFeature} vector of each candidate.
+ * <p>
+ * Features are computed in a single pass and only when their weight is not zero.
+ * The vectors are logged at TRACE level (marker 'ltr') to build the offline training set.
+ */
+public final class LinearRanker extends BaseRanker {
+    private static final LTRFeature[] FEATURES = LTRFeature.values();
+
+    private Marker ltrMarker = MarkerFactory.getMarker("ltr");
+
+    @Override
+    Scores doScore(Scores inputScores, Rankable target) {
+        throw new StarGraphException("LTR parameters are required.");
+    }
+
+    @Override
+    Scores doScore(Scores inputScores, Rankable target, ModifiableRankParams rankParams) {
+        if (!(rankParams instanceof ModifiableLTRParams)) {
+            throw new StarGraphException("LTR parameters are required, got: " + rankParams);
+        }
+
+        final ModifiableLTRParams params = (ModifiableLTRParams) rankParams;
+        final float[] weights = params.getWeights();
+        final String targetValue = target.getValue();
+        final boolean tracing = logger.isTraceEnabled(ltrMarker);
+        final NGramSignature targetSignature =
+                weights[JACCARD.ordinal()] != 0 || tracing ? NGramSignature.of(targetValue, 1) : null;
+        final Map<Serializable, Double> embedding = embedding(inputScores, target, params);
+        final Map<String, Double> popularity = params.getPopularity();
+
+        double maxScore = 0;
+        for (Score score : inputScores) {
+            maxScore = Math.max(maxScore, score.getValue());
+        }
+
+        final float[] features = new float[FEATURES.length];
+        Scores rescored = new Scores(inputScores.size());
+
+        for (Score score : inputScores) {
+            Rankable entry = score.getRankableView();
+            String value = entry.getValue();
+
+            features[ES_SCORE.ordinal()] = maxScore > 0 ? (float) (score.getValue() / maxScore) : 0;
+
+            if (weights[LEVENSHTEIN.ordinal()] != 0 || tracing) {
+                features[LEVENSHTEIN.ordinal()] = 1f / (EditDistance.levenshtein(value, targetValue) + 1);
+            }
+            if (weights[JAROWINKLER.ordinal()] != 0 || tracing) {
+                features[JAROWINKLER.ordinal()] = (float) StringUtils.getJaroWinklerDistance(value, targetValue);
+            }
+            if (targetSignature != null) {
+                NGramSignature signature = entry.getSignature();
+                if (signature == null || signature.getN() != targetSignature.getN()) {
+                    signature = NGramSignature.of(value, targetSignature.getN());
+                }
+                features[JACCARD.ordinal()] = (float) signature.jaccard(targetSignature);
+            }
+            if (embedding != null) {
+                features[EMBEDDING.ordinal()] = embedding.getOrDefault(score.getEntry(), 0d).floatValue();
+            }
+            features[POPULARITY.ordinal()] = popularity.getOrDefault(entry.getId(), 0d).floatValue();
+
+            double rank = params.getBias();
+            for (int i = 0; i < features.length; i++) {
+                rank += weights[i] * features[i];
+            }
+
+            if (tracing) {
+                logger.trace(ltrMarker, "'{}' '{}' {}", targetValue, entry.getId(), Arrays.toString(features));
+            }
+
+            rescored.add(new Score(score.getEntry(), rank));
+        }
+
+        rescored.sort(true);
+
+        if (params.getLimit() > 0 && rescored.size() > params.getLimit()) {
+            rescored.subList(params.getLimit(), rescored.size()).clear();
+        }
+
+        return rescored;
+    }
+
+    /**
+     * Relatedness of all candidates at once, as the distributional service is remote.
+     */
+    private Map<Serializable, Double> embedding(Scores inputScores, Rankable target, ModifiableLTRParams params) {
+        if (params.getWeight(EMBEDDING) == 0 || params.getEmbeddingParams() == null || inputScores.isEmpty()) {
+            return null;
+        }
+
+        ModifiableIndraParams embeddingParams = params.getEmbeddingParams();
+        Ranker ranker = Rankers.getRanker(embeddingParams.getRankingModel());
+        Map<Serializable, Double> related = new HashMap<>(inputScores.size() * 2);
+        ranker.score(inputScores, target, embeddingParams).forEach(s -> related.put(s.getEntry(), s.getValue()));
+        return related;
+    }
+}
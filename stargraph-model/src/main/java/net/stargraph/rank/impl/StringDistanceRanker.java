@@ -26,18 +26,20 @@ package net.stargraph.rank.impl;
  * ==========================License-End===============================
  */
 
-import net.stargraph.rank.Rankable;
-import net.stargraph.rank.Score;
-import net.stargraph.rank.Scores;
+import net.stargraph.rank.*;
+
+import static net.stargraph.rank.Threshold.ThresholdType.MIN;
 
 public abstract class StringDistanceRanker extends BaseRanker {
+    private static final double EPSILON = 1e-9;
 
     @Override
     final Scores doScore(Scores inputScores, Rankable target) {
         Scores rescored = new Scores(inputScores.size());
+        Distance distance = distanceTo(target);
 
         inputScores.forEach(score -> {
-            double dist = 1.0 / (computeStringDistance(score.getRankableView().getValue(), target.getValue()) + 1);
+            double dist = 1.0 / (distance.of(score.getRankableView(), Double.POSITIVE_INFINITY) + 1);
             rescored.add(new Score(score.getEntry(), dist));
         });
 
@@ -45,5 +47,90 @@ public abstract class StringDistanceRanker extends BaseRanker {
         return rescored;
     }
 
+    @Override
+    final Scores doScore(Scores inputScores, Rankable target, ModifiableRankParams rankParams) {
+        final Threshold threshold = rankParams.getThreshold();
+        final double minScore = threshold != null && threshold.type == MIN ? threshold.value : 0;
+        final int limit = rankParams.getLimit();
+
+        if (minScore <= 0 && limit <= 0) {
+            return doScore(inputScores, target);
+        }
+
+        // As score = 1 / (dist + 1) the MIN threshold is also an upper bound for the distance.
+        final double maxDistance = minScore > 0 ? (1.0 / minScore) - 1 + EPSILON : Double.POSITIVE_INFINITY;
+        // Ascending distances of the current top entries.
+        final double[] top = limit > 0 ? new double[limit] : null;
+        int topSize = 0;
+        int discarded = 0;
+
+        Distance distance = distanceTo(target);
+        Scores rescored = new Scores(limit > 0 ? Math.min(limit, inputScores.size()) : inputScores.size());
+
+        for (Score score : inputScores) {
+            double bound = top != null && topSize == limit ? Math.min(maxDistance, top[limit - 1]) : maxDistance;
+            if (bound < 0) {
+                discarded++;
+                continue;
+            }
+
+            double dist = distance.of(score.getRankableView(), bound);
+            if (dist > bound) {
+                // Can't beat neither the threshold nor the current top entries.
+                discarded++;
+                continue;
+            }
+
+            if (top != null) {
+                topSize = offer(top, topSize, dist);
+            }
+
+            rescored.add(new Score(score.getEntry(), 1.0 / (dist + 1)));
+        }
+
+        rescored.sort(true);
+
+        if (limit > 0 && rescored.size() > limit) {
+            rescored.subList(limit, rescored.size()).clear();
+        }
+
+        logger.debug(marker, "Discarded {} of {} entries before ranking completion.", discarded, inputScores.size());
+        return rescored;
+    }
+
     abstract double computeStringDistance(CharSequence s1, CharSequence s2);
+
+    /**
+     * Implementations able to stop early may return any value greater than maxDistance
+     * as soon as it is known that the distance exceeds it.
+     */
+    double computeStringDistance(CharSequence s1, CharSequence s2, double maxDistance) {
+        return computeStringDistance(s1, s2);
+    }
+
+    /**
+     * Binds the distance computation to the target once per scoring call,
+     * so implementations can prepare whatever they need from it upfront.
+     */
+    Distance distanceTo(Rankable target) {
+        return (entry, maxDistance) -> computeStringDistance(entry.getValue(), target.getValue(), maxDistance);
+    }
+
+    interface Distance {
+        double of(Rankable entry, double maxDistance);
+    }
+
+    private static int offer(double[] top, int size, double dist) {
+        int pos = size < top.length ? size : top.length - 1;
+        if (size == top.length && dist >= top[pos]) {
+            return size;
+        }
+
+        while (pos > 0 && top[pos - 1] > dist) {
+            top[pos] = top[pos - 1];
+            pos--;
+        }
+        top[pos] = dist;
+        return size < top.length ? size + 1 : size;
+    }
 }
@@ -27,6 +27,7 @@ package net.stargraph.rest;
  */
 
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
@@ -40,4 +41,18 @@ public interface AdminResource {
     @Path("_info")
     Response getInfo();
 
+    /**
+     * Latency histograms of the query stages and the rankers, plus the query executor load.
+     */
+    @GET
+    @Path("_metrics")
+    Response getMetrics();
+
+    /**
+     * Reloads the NLI rules from the configuration without restarting. Queries already running keep the former rules.
+     */
+    @POST
+    @Path("rules/_reload")
+    Response reloadRules();
+
 }
@@ -27,11 +27,15 @@ package net.stargraph.rest;
  */
 
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.List;
 
 /**
  * Entry point to talk with the Database.
+ * Queries run asynchronously and are answered with 503 (Service Unavailable) plus Retry-After when the server is saturated.
  */
 @Path("_kb")
 @Produces(MediaType.APPLICATION_JSON)
@@ -39,5 +43,40 @@ public interface QueryResource {
 
     @GET
     @Path("{kbId}/query")
-    Response query(@PathParam("kbId") String id, @QueryParam("q") String q);
+    void query(@Suspended AsyncResponse asyncResponse,
+               @PathParam("kbId") String id, @QueryParam("q") String q, @QueryParam("qid") String queryId,
+               @DefaultValue("-1") @QueryParam("timeout") long timeout,
+               @DefaultValue("-1") @QueryParam("limit") int limit,
+               @QueryParam("debug") String debug);
+
+    /**
+     * Plain SPARQL endpoint streaming the results while the query runs:
+     * SPARQL JSON Results (format=json) or NDJSON (format=ndjson), N-Triples for CONSTRUCT and DESCRIBE.
+     */
+    @GET
+    @Path("{kbId}/sparql")
+    @Produces({"application/sparql-results+json", "application/x-ndjson", "application/n-triples", MediaType.APPLICATION_JSON})
+    void sparql(@Suspended AsyncResponse asyncResponse,
+                @PathParam("kbId") String id, @QueryParam("q") String q,
+                @DefaultValue("json") @QueryParam("format") String format,
+                @QueryParam("qid") String queryId,
+                @DefaultValue("-1") @QueryParam("timeout") long timeout,
+                @DefaultValue("-1") @QueryParam("limit") int limit);
+
+    /**
+     * Answers a JSON array of queries, streaming one NDJSON line per query in the same order.
+     * A failed query yields a {"query":..., "error":...} line, the others are not affected.
+     */
+    @POST
+    @Path("{kbId}/queries")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({"application/x-ndjson", MediaType.APPLICATION_JSON})
+    void queryAll(@Suspended AsyncResponse asyncResponse,
+                  @PathParam("kbId") String id, List<String> queries, @QueryParam("qid") String queryId,
+                  @DefaultValue("-1") @QueryParam("timeout") long timeout,
+                  @DefaultValue("-1") @QueryParam("limit") int limit);
+
+    @DELETE
+    @Path("{kbId}/query/{queryId}")
+    Response cancel(@PathParam("kbId") String id, @PathParam("queryId") String queryId);
 }
@@ -29,11 +29,14 @@ package net.stargraph.rest;
 import net.stargraph.query.InteractionMode;
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.Objects;
 
 public abstract class UserResponse implements Serializable {
     private String query;
     private InteractionMode interactionMode;
+    private boolean truncated;
+    private List<TimingEntry> timings;
 
     public UserResponse(String query, InteractionMode interactionMode) {
         this.query = Objects.requireNonNull(query);
@@ -48,6 +51,39 @@ public abstract class UserResponse implements Serializable {
         return interactionMode;
     }
 
+    public final boolean isTruncated() {
+        return truncated;
+    }
+
+    public final void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * Only present when asked with 'debug=timing'.
+     */
+    public final List<TimingEntry> getTimings() {
+        return timings;
+    }
+
+    public final void setTimings(List<TimingEntry> timings) {
+        this.timings = timings;
+    }
+
+    public static class TimingEntry {
+        public String stage;
+        public String name;
+        public int depth;
+        public double millis;
+
+        public TimingEntry(String stage, String name, int depth, double millis) {
+            this.stage = stage;
+            this.name = name;
+            this.depth = depth;
+            this.millis = millis;
+        }
+    }
+
     public static class EntityEntry {
         public String id;
         public String value;
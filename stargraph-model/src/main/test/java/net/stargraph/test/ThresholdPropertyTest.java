@@ -0,0 +1,171 @@
+package net.stargraph.test;
+
+import net.stargraph.rank.ModifiableRankParams;
+import net.stargraph.rank.ParamsBuilder;
+import net.stargraph.rank.Rankable;
+import net.stargraph.rank.Rankers;
+import net.stargraph.rank.Score;
+import net.stargraph.rank.Scores;
+import net.stargraph.rank.Threshold;
+import net.stargraph.rank.ThresholdFilter;
+import net.stargraph.rank.impl.LevenshteinRanker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static net.stargraph.rank.Threshold.ThresholdType.MIN;
+
+/**
+ * Checks the single pass filtering against the former two pass implementation on random inputs.
+ */
+public final class ThresholdPropertyTest {
+    private static final int RUNS = 5000;
+    private static final double[] SPECIAL = {0, 1, Double.MIN_VALUE, -Double.MIN_VALUE,
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    @Test
+    public void sameAsTwoPassFilterTest() {
+        Random random = new Random(1234);
+        for (int i = 0; i < RUNS; i++) {
+            Scores scores = randomScores(random);
+            Scores copy = new Scores(scores);
+            Threshold threshold = randomThreshold(random);
+
+            Scores expected = twoPassFilter(scores, threshold);
+            Assert.assertEquals(ThresholdFilter.filter(scores, threshold), expected, scores + " " + threshold);
+            Assert.assertEquals(scores, copy, "Input must not change");
+        }
+    }
+
+    @Test
+    public void sameAsRankThenFilterTest() {
+        Random random = new Random(4321);
+        for (int i = 0; i < RUNS / 10; i++) {
+            Scores scores = new Scores();
+            int size = random.nextInt(20);
+            for (int j = 0; j < size; j++) {
+                scores.add(new Score(rankable(randomLabel(random)), 0));
+            }
+            Scores copy = new Scores(scores);
+            Rankable target = rankable(randomLabel(random));
+            ModifiableRankParams params = ParamsBuilder.levenshtein().threshold(randomThreshold(random));
+
+            Scores expected = twoPassFilter(new LevenshteinRanker().score(scores, target), params.getThreshold());
+            Assert.assertEquals(Rankers.apply(scores, params, target), expected);
+            Assert.assertEquals(scores, copy, "Input must not change");
+        }
+    }
+
+    private static Scores randomScores(Random random) {
+        int size = random.nextInt(40);
+        Scores scores = new Scores(size);
+        for (int i = 0; i < size; i++) {
+            double v;
+            switch (random.nextInt(4)) {
+                case 0:
+                    v = SPECIAL[random.nextInt(SPECIAL.length)];
+                    break;
+                case 1:
+                    v = random.nextInt(5); // plenty of ties
+                    break;
+                default:
+                    v = random.nextDouble() * 100 - 10;
+            }
+            scores.add(new Score("e" + i, v));
+        }
+        if (random.nextBoolean()) {
+            scores.sort(true);
+        }
+        return scores;
+    }
+
+    private static Threshold randomThreshold(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return Threshold.min(random.nextDouble() * 2 - 0.5);
+            case 1:
+                return Threshold.max(random.nextDouble() * 2 - 0.5);
+            default:
+                return Threshold.auto();
+        }
+    }
+
+    private static String randomLabel(Random random) {
+        char[] chars = new char[1 + random.nextInt(8)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = "abc ".charAt(random.nextInt(4));
+        }
+        return new String(chars);
+    }
+
+    private static Rankable rankable(String v) {
+        return new Rankable() {
+            @Override
+            public String getValue() {
+                return v;
+            }
+
+            @Override
+            public String getId() {
+                return v;
+            }
+        };
+    }
+
+    /**
+     * The former implementation, kept as the reference.
+     */
+    private static Scores twoPassFilter(Scores inputScores, Threshold threshold) {
+        if (inputScores.isEmpty()) {
+            return inputScores;
+        }
+
+        Scores filtered = new Scores();
+
+        switch (threshold.type) {
+            case AUTO:
+                if (inputScores.size() < 3) {
+                    return inputScores;
+                }
+
+                Iterator<Score> it = inputScores.iterator();
+                Score previous = it.next();
+                double max = Double.MIN_VALUE;
+
+                while (it.hasNext()) {
+                    Score curr = it.next();
+                    double diff = previous.getValue() - curr.getValue();
+                    if (diff > max) {
+                        max = diff;
+                    }
+                    previous = curr;
+                }
+
+                it = inputScores.iterator();
+                previous = it.next();
+                filtered.add(previous);
+
+                while (it.hasNext()) {
+                    Score curr = it.next();
+                    double diff = previous.getValue() - curr.getValue();
+                    if (diff < max) {
+                        filtered.add(curr);
+                    } else {
+                        break;
+                    }
+                    previous = curr;
+                }
+                break;
+
+            default:
+                filtered = new Scores(inputScores.stream().
+                        filter(s -> threshold.type == MIN ? s.getValue() > threshold.value : s.getValue() < threshold.value)
+                        .collect(Collectors.toList()));
+        }
+
+        return filtered;
+    }
+}
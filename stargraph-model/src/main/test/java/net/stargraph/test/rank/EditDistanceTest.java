@@ -0,0 +1,82 @@
+package net.stargraph.test.rank;
+
+import net.stargraph.rank.ModifiableRankParams;
+import net.stargraph.rank.ParamsBuilder;
+import net.stargraph.rank.Scores;
+import net.stargraph.rank.Threshold;
+import net.stargraph.rank.ThresholdFilter;
+import net.stargraph.rank.impl.EditDistance;
+import net.stargraph.rank.impl.LevenshteinRanker;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static net.stargraph.test.rank.RankTestUtils.createRankable;
+import static net.stargraph.test.rank.RankTestUtils.createScore;
+
+public final class EditDistanceTest {
+
+    @Test
+    public void exactDistanceTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            String s = randomString(random, random.nextInt(90));
+            String t = randomString(random, random.nextInt(90));
+            Assert.assertEquals(EditDistance.levenshtein(s, t), StringUtils.getLevenshteinDistance(s, t), s + " x " + t);
+        }
+    }
+
+    @Test
+    public void boundedDistanceTest() {
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            String s = randomString(random, random.nextInt(90));
+            String t = randomString(random, random.nextInt(90));
+            int k = random.nextInt(20);
+            int expected = StringUtils.getLevenshteinDistance(s, t);
+            int actual = EditDistance.levenshtein(s, t, k);
+            if (expected <= k) {
+                Assert.assertEquals(actual, expected, s + " x " + t);
+            } else {
+                Assert.assertTrue(actual > k, s + " x " + t);
+            }
+        }
+    }
+
+    @Test
+    public void nonLatinTest() {
+        Assert.assertEquals(EditDistance.levenshtein("São Paulo", "Sao Paulo"), 1);
+        Assert.assertEquals(EditDistance.levenshtein("Москва", "Москва"), 0);
+        Assert.assertEquals(EditDistance.levenshtein("", "lambda"), 6);
+    }
+
+    @Test
+    public void boundedRankerTest() {
+        Scores scores = new Scores(Arrays.asList(createScore("Barack Obama", 10), createScore("Michelle Obama", 9),
+                createScore("Obama", 8), createScore("Barack", 7), createScore("Barack H. Obama", 6),
+                createScore("Osama", 5), createScore("Barak Obama", 4)));
+
+        LevenshteinRanker ranker = new LevenshteinRanker();
+        Scores full = ranker.score(scores, createRankable("Barack Obama"));
+
+        ModifiableRankParams minParams = ParamsBuilder.levenshtein().threshold(Threshold.min(0.2));
+        Scores bounded = ranker.score(scores, createRankable("Barack Obama"), minParams);
+        Assert.assertEquals(ThresholdFilter.filter(bounded, minParams.getThreshold()),
+                ThresholdFilter.filter(full, minParams.getThreshold()));
+
+        ModifiableRankParams topParams = ParamsBuilder.levenshtein().limit(3);
+        Scores top = ranker.score(scores, createRankable("Barack Obama"), topParams);
+        Assert.assertEquals(top, full.subList(0, 3));
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = "abcde ".charAt(random.nextInt(6));
+        }
+        return new String(chars);
+    }
+}
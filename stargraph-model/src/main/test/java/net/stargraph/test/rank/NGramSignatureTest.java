@@ -0,0 +1,77 @@
+package net.stargraph.test.rank;
+
+import net.stargraph.model.InstanceEntity;
+import net.stargraph.rank.NGramSignature;
+import net.stargraph.rank.Score;
+import net.stargraph.rank.Scores;
+import net.stargraph.rank.impl.JaccardRanker;
+import org.apache.commons.text.beta.similarity.JaccardDistance;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static net.stargraph.test.rank.RankTestUtils.createRankable;
+import static net.stargraph.test.rank.RankTestUtils.createScore;
+
+public final class NGramSignatureTest {
+
+    @Test
+    public void signatureTest() {
+        Assert.assertEquals(NGramSignature.of("banana", 1).getGrams(), new int[] {'a', 'b', 'n'});
+        Assert.assertEquals(NGramSignature.of("banana", 2).getGrams().length, 3);
+        Assert.assertEquals(NGramSignature.of("ba", 3).getGrams().length, 1);
+        Assert.assertEquals(NGramSignature.of("", 2).getGrams().length, 0);
+    }
+
+    @Test
+    public void sameAsCommonsTextTest() {
+        JaccardDistance jaccardDistance = new JaccardDistance();
+        JaccardRanker ranker = new JaccardRanker();
+        Random random = new Random(13);
+
+        for (int i = 0; i < 2000; i++) {
+            String s = randomString(random, 1 + random.nextInt(30));
+            String t = randomString(random, 1 + random.nextInt(30));
+            double expected = 1.0 / (jaccardDistance.apply(s, t) + 1);
+            Scores scores = ranker.score(new Scores(Arrays.asList(createScore(s, 0))), createRankable(t));
+            Assert.assertEquals(scores.get(0).getValue(), expected, s + " x " + t);
+        }
+    }
+
+    @Test
+    public void precomputedSignatureTest() {
+        String[] labels = {"Barack Obama", "Michelle Obama", "Obama", "Osama", "Barak Obama", "Ōbama"};
+
+        Scores plain = new Scores(labels.length);
+        Scores signed = new Scores(labels.length);
+        for (String label : labels) {
+            plain.add(new Score(new InstanceEntity(label, label), 0));
+            signed.add(new Score(new InstanceEntity(label, label, null, NGramSignature.of(label, 1)), 0));
+        }
+
+        JaccardRanker ranker = new JaccardRanker();
+        Assert.assertEquals(ranker.score(signed, createRankable("Barack Obama")),
+                ranker.score(plain, createRankable("Barack Obama")));
+    }
+
+    @Test
+    public void mixedSizesTest() {
+        Scores scores = new Scores(Arrays.asList(
+                new Score(new InstanceEntity("a", "Obama", null, NGramSignature.of("Obama", 2)), 0),
+                new Score(new InstanceEntity("b", "Osama", null, NGramSignature.of("Osama", 1)), 0)));
+
+        Scores ranked = new JaccardRanker().score(scores, createRankable("Obama"));
+        Assert.assertEquals(ranked.get(0).getRankableView().getId(), "a");
+        Assert.assertEquals(ranked.get(0).getValue(), 1.0);
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = "abcdefgh É".charAt(random.nextInt(10));
+        }
+        return new String(chars);
+    }
+}
@@ -1,11 +1,21 @@
 package net.stargraph.test.rank;
 
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.rank.LTRFeature;
+import net.stargraph.rank.ModifiableLTRParams;
+import net.stargraph.rank.ParamsBuilder;
+import net.stargraph.rank.Rankable;
+import net.stargraph.rank.Ranker;
+import net.stargraph.rank.Rankers;
+import net.stargraph.rank.RankingModel;
+import net.stargraph.rank.Score;
 import net.stargraph.rank.Scores;
 import net.stargraph.rank.impl.LevenshteinRanker;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import static net.stargraph.test.rank.RankTestUtils.createRankable;
 import static net.stargraph.test.rank.RankTestUtils.createScore;
@@ -23,4 +33,53 @@ public final class RankerTest {
         Assert.assertEquals(rescored.get(0).getRankableView().getValue(), "lambda^3");
         Assert.assertEquals(rescored.get(0).getValue(), 1.0);
     }
+
+    @Test
+    public void linearTest() {
+        Scores scores = new Scores(Arrays.asList(createScore("lambda3", 100),
+                createScore("Lambda^30", 94), createScore("Lambda^300", 51), createScore("lambda^3", 1)));
+
+        ModifiableLTRParams params = ParamsBuilder.ltr().weight(LTRFeature.LEVENSHTEIN, 1);
+        Scores rescored = Rankers.apply(scores, params, "lambda^3");
+        Assert.assertEquals(rescored.get(0).getRankableView().getValue(), "lambda^3");
+        Assert.assertEquals(rescored.get(0).getValue(), 1.0);
+
+        params = ParamsBuilder.ltr().weight(LTRFeature.ES_SCORE, 1).weight(LTRFeature.POPULARITY, 2)
+                .popularity(Collections.singletonMap("Lambda^300", 1.0));
+        params.limit(2);
+        rescored = Rankers.apply(scores, params, "lambda^3");
+        Assert.assertEquals(rescored.size(), 2);
+        Assert.assertEquals(rescored.get(0).getRankableView().getValue(), "Lambda^300");
+        Assert.assertEquals(rescored.get(1).getRankableView().getValue(), "lambda3");
+    }
+
+    @Test
+    public void registryTest() {
+        Ranker builtIn = Rankers.getRanker(RankingModel.LEVENSHTEIN);
+        Assert.assertSame(Rankers.getRanker(RankingModel.LEVENSHTEIN), builtIn);
+
+        try {
+            Rankers.configure(ConfigFactory.parseString("levenshtein = \"" + ConstantRanker.class.getName() + "\""));
+            Assert.assertTrue(Rankers.getRanker(RankingModel.LEVENSHTEIN) instanceof ConstantRanker);
+
+            Scores scores = new Scores(Arrays.asList(createScore("lambda3", 100), createScore("lambda^3", 1)));
+            Scores rescored = Rankers.apply(scores, ParamsBuilder.levenshtein(), "lambda^3");
+
+            Assert.assertEquals(rescored.size(), 2);
+            Assert.assertEquals(rescored.get(0).getValue(), 0.5);
+            Assert.assertEquals(Rankers.getStats().get(RankingModel.LEVENSHTEIN).getCalls(), 1);
+            Assert.assertEquals(Rankers.getStats().get(RankingModel.LEVENSHTEIN).getEntries(), 2);
+        } finally {
+            Rankers.register(RankingModel.LEVENSHTEIN, builtIn);
+        }
+    }
+
+    public static final class ConstantRanker implements Ranker {
+        @Override
+        public Scores score(Scores inputScores, Rankable target) {
+            Scores scores = new Scores(inputScores.size());
+            inputScores.forEach(s -> scores.add(new Score(s.getEntry(), 0.5)));
+            return scores;
+        }
+    }
 }
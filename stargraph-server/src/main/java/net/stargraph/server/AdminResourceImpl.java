@@ -26,17 +26,35 @@ package net.stargraph.server;
  * ==========================License-End===============================
  */
 
+import com.google.common.cache.CacheStats;
+import net.stargraph.core.Stargraph;
 import net.stargraph.core.Version;
+import net.stargraph.core.impl.jena.JenaGraphSearcher;
+import net.stargraph.core.query.Analyzers;
+import net.stargraph.core.query.annotator.CachedAnnotator;
+import net.stargraph.core.trace.QueryMetrics;
+import net.stargraph.rank.Rankers;
 import net.stargraph.rest.AdminResource;
 
 import javax.ws.rs.core.Response;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
 /**
  * Administration capabilities.
  */
 public final class AdminResourceImpl implements AdminResource {
+    private Stargraph core;
+    private QueryExecutor queryExecutor;
+
+    public AdminResourceImpl(Stargraph core, QueryExecutor queryExecutor) {
+        this.core = Objects.requireNonNull(core);
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+    }
 
     @Override
     public Response getInfo() {
@@ -48,4 +66,58 @@ public final class AdminResourceImpl implements AdminResource {
                     put("code-name", Version.getCodeName());
                 }}).build();
     }
+
+    @Override
+    public Response getMetrics() {
+        Map<String, Object> rankers = new TreeMap<>();
+        Rankers.getStats().forEach((model, stats) -> rankers.put(model.name(), new LinkedHashMap<String, Object>() {{
+            put("calls", stats.getCalls());
+            put("entries", stats.getEntries());
+            put("mean-ms", stats.getMeanMillis());
+            put("max-ms", stats.getMaxNanos() / 1e6);
+        }}));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("stages", QueryMetrics.snapshot());
+        metrics.put("rankers", rankers);
+        metrics.put("executor", queryExecutor.getMetrics());
+        // Reading the metrics must not load the analyzers.
+        if (core.hasAnalyzers()) {
+            Analyzers analyzers = core.getAnalyzers();
+            Map<String, Object> queryTypes = new TreeMap<>();
+            analyzers.getRules().getQueryTypeMatchers()
+                    .forEach((language, matcher) -> queryTypes.put(language.name(), matcher.getHits()));
+            metrics.put("query-types", queryTypes);
+            CachedAnnotator annotator = analyzers.getAnnotator();
+            metrics.put("annotations", cacheMetrics(annotator.size(), annotator.getStats()));
+        }
+        Map<String, Object> parsedQueries = new TreeMap<>();
+        core.getGraphSearchers().forEach((dbId, searcher) -> {
+            if (searcher instanceof JenaGraphSearcher) {
+                JenaGraphSearcher jena = (JenaGraphSearcher) searcher;
+                parsedQueries.put(dbId, cacheMetrics(jena.getQueryCacheSize(), jena.getQueryCacheStats()));
+            }
+        });
+        metrics.put("parsed-queries", parsedQueries);
+        return Response.status(200).entity(metrics).build();
+    }
+
+    private static Map<String, Object> cacheMetrics(long size, CacheStats stats) {
+        return new LinkedHashMap<String, Object>() {{
+            put("size", size);
+            put("hits", stats.hitCount());
+            put("misses", stats.missCount());
+            put("hit-rate", stats.hitRate());
+            put("evictions", stats.evictionCount());
+        }};
+    }
+
+    @Override
+    public Response reloadRules() {
+        core.reloadRules();
+        return Response.status(200).entity(new LinkedHashMap<String, Object>() {{
+            put("server-time", LocalDateTime.now().toString());
+            put("languages", core.getAnalyzers().getRules().getLanguages());
+        }}).build();
+    }
 }
@@ -0,0 +1,135 @@
+package net.stargraph.server;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-server
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the queries apart from the HTTP workers, with admission control.
+ * <p>
+ * A query is refused right away, instead of waiting, when its KB already has 'per-kb-limit' queries
+ * queued or running, or when the shared queue is full.
+ */
+public final class QueryExecutor {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private Marker marker = MarkerFactory.getMarker("server");
+    private ThreadPoolExecutor executor;
+    private Map<String, Semaphore> permits;
+    private int perKBLimit;
+    private int queueSize;
+    private long retryAfter;
+    private LongAdder rejected;
+
+    public QueryExecutor(Config config) {
+        Objects.requireNonNull(config);
+        int threads = config.getInt("threads");
+        this.queueSize = config.getInt("queue-size");
+        this.perKBLimit = config.getInt("per-kb-limit");
+        this.retryAfter = Math.max(1, config.getDuration("retry-after", TimeUnit.SECONDS));
+        this.permits = new ConcurrentHashMap<>();
+        this.rejected = new LongAdder();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new ThreadFactoryBuilder().setNameFormat("query-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        logger.info(marker, "Query executor: threads={}, queue-size={}, per-kb-limit={}", threads, queueSize, perKBLimit);
+    }
+
+    /**
+     * @return false if the query was not accepted.
+     */
+    public boolean submit(String dbId, Runnable task) {
+        Semaphore kbPermits = permits.computeIfAbsent(dbId, (id) -> new Semaphore(perKBLimit));
+        if (!kbPermits.tryAcquire()) {
+            return reject(dbId);
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    kbPermits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            kbPermits.release();
+            return reject(dbId);
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfter;
+    }
+
+    /**
+     * The answer to a query that was not accepted.
+     */
+    public Response unavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, retryAfter).build();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> inFlight = new TreeMap<>();
+        permits.forEach((dbId, s) -> inFlight.put(dbId, perKBLimit - s.availablePermits()));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queue-depth", executor.getQueue().size());
+        metrics.put("queue-size", queueSize);
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("threads", executor.getPoolSize());
+        metrics.put("completed", executor.getCompletedTaskCount());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("in-flight", inFlight);
+        return metrics;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean reject(String dbId) {
+        rejected.increment();
+        logger.warn(marker, "Saturated, refusing query on '{}' (queue-depth={})", dbId, executor.getQueue().size());
+        return false;
+    }
+}
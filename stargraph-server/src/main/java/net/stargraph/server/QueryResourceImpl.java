@@ -26,51 +26,236 @@ package net.stargraph.server;
  * ==========================License-End===============================
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.stargraph.StarGraphException;
 import net.stargraph.core.Stargraph;
+import net.stargraph.core.graph.GraphSearcher;
+import net.stargraph.core.graph.ModifiableGraphSearchParams;
+import net.stargraph.core.query.Batch;
 import net.stargraph.core.query.QueryEngine;
 import net.stargraph.core.query.QueryResponse;
 import net.stargraph.core.query.response.AnswerSetResponse;
 import net.stargraph.core.query.response.NoResponse;
+import net.stargraph.core.query.response.SPARQLAskResponse;
+import net.stargraph.core.query.response.SPARQLGraphResponse;
 import net.stargraph.core.query.response.SPARQLSelectResponse;
+import net.stargraph.core.trace.QueryTrace;
 import net.stargraph.model.LabeledEntity;
 import net.stargraph.rest.*;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryException;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static net.stargraph.query.InteractionMode.SPARQL;
+
 public final class QueryResourceImpl implements QueryResource {
     private Logger logger = LoggerFactory.getLogger(getClass());
     private Marker marker = MarkerFactory.getMarker("server");
+    private static final String N_TRIPLES = "application/n-triples";
+    private static final ObjectMapper jsonMapper = new ObjectMapper();
     private Stargraph core;
-    private Map<String, QueryEngine> engines;
+    private QueryExecutor queryExecutor;
 
-    public QueryResourceImpl(Stargraph core) {
+    public QueryResourceImpl(Stargraph core, QueryExecutor queryExecutor) {
         this.core = Objects.requireNonNull(core);
-        this.engines = new ConcurrentHashMap<>();
+        this.queryExecutor = Objects.requireNonNull(queryExecutor);
+    }
+
+    @Override
+    public void query(AsyncResponse asyncResponse, String id, String q, String queryId, long timeout, int limit, String debug) {
+        submit(asyncResponse, id, () -> doQuery(id, q, queryId, timeout, limit, debug));
     }
 
     @Override
-    public Response query(String id, String q) {
+    public void sparql(AsyncResponse asyncResponse, String id, String q, String format, String queryId, long timeout, int limit) {
+        submit(asyncResponse, id, () -> doSparql(id, q, format, queryId, timeout, limit));
+    }
+
+    @Override
+    public void queryAll(AsyncResponse asyncResponse, String id, List<String> queries, String queryId, long timeout, int limit) {
+        submit(asyncResponse, id, () -> doQueryAll(id, queries, queryId, timeout, limit));
+    }
+
+    /**
+     * Hands the query to the executor, the response (even a streamed one) is written by the query thread.
+     */
+    private void submit(AsyncResponse asyncResponse, String id, Supplier<Response> query) {
+        if (!core.hasKB(id)) {
+            asyncResponse.resume(Response.status(Response.Status.NOT_FOUND).build());
+            return;
+        }
+
+        boolean accepted = queryExecutor.submit(id, () -> {
+            try {
+                asyncResponse.resume(query.get());
+            }
+            catch (Exception e) {
+                asyncResponse.resume(e);
+            }
+        });
+
+        if (!accepted) {
+            asyncResponse.resume(queryExecutor.unavailable());
+        }
+    }
+
+    private Response doQuery(String id, String q, String queryId, long timeout, int limit, String debug) {
+        QueryTrace trace = QueryTrace.begin();
         try {
             if (core.hasKB(id)) {
-                QueryEngine engine = engines.computeIfAbsent(id, (k) -> new QueryEngine(k, core));
-                QueryResponse queryResponse = engine.query(q);
-                return Response.status(Response.Status.OK).entity(buildUserResponse(queryResponse)).build();
+                QueryEngine engine = core.getQueryEngine(id);
+                ModifiableGraphSearchParams params = ModifiableGraphSearchParams.create()
+                        .timeout(timeout).maxRows(limit).queryId(queryId);
+                QueryResponse queryResponse = engine.query(q, params);
+                if (queryResponse instanceof SPARQLGraphResponse) {
+                    return Response.status(Response.Status.OK)
+                            .entity(streamTriples((SPARQLGraphResponse) queryResponse)).type(N_TRIPLES).build();
+                }
+                UserResponse userResponse = buildUserResponse(queryResponse);
+                userResponse.setTruncated(queryResponse.isTruncated());
+                if ("timing".equals(debug)) {
+                    userResponse.setTimings(trace.getSpans().stream()
+                            .map(s -> new UserResponse.TimingEntry(s.getStage(), s.getName(), s.getDepth(), s.getElapsedMillis()))
+                            .collect(Collectors.toList()));
+                }
+                return Response.status(Response.Status.OK).entity(userResponse).build();
             }
             return Response.status(Response.Status.NOT_FOUND).build();
         }
         catch (Exception e) {
             logger.error(marker, "Query execution failed: '{}' on '{}'", q, id, e);
         }
+        finally {
+            trace.end();
+        }
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
     }
 
+    private Response doSparql(String id, String q, String format, String queryId, long timeout, int limit) {
+        final boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"json".equalsIgnoreCase(format)) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Unknown format '" + format + "'").build();
+        }
+
+        GraphSearcher graphSearcher = core.getGraphSearcher(id);
+        Query query;
+        try {
+            query = graphSearcher.parse(q);
+        }
+        catch (QueryException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        ModifiableGraphSearchParams params = ModifiableGraphSearchParams.create()
+                .timeout(timeout).maxRows(limit).queryId(queryId);
+
+        if (query.isConstructType() || query.isDescribeType()) {
+            SPARQLGraphResponse graphResponse = new SPARQLGraphResponse(SPARQL, q, graphSearcher, query, params);
+            return Response.status(Response.Status.OK).entity(streamTriples(graphResponse)).type(N_TRIPLES).build();
+        }
+
+        StreamingOutput stream = output -> {
+            SPARQLResultsWriter writer = new SPARQLResultsWriter(output, ndjson);
+            if (query.isAskType()) {
+                writer.ask(graphSearcher.ask(query, params));
+            }
+            else {
+                writer.start(query.getResultVars());
+                writer.finish(graphSearcher.selectBindings(query, params, writer::row));
+            }
+        };
+
+        String type = ndjson ? SPARQLResultsWriter.NDJSON : SPARQLResultsWriter.JSON;
+        return Response.status(Response.Status.OK).entity(stream).type(type).build();
+    }
+
+    private Response doQueryAll(String id, List<String> queries, String queryId, long timeout, int limit) {
+        if (queries == null || queries.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("Expected a JSON array of queries").build();
+        }
+
+        int maxSize = core.getConfig().getInt("query.batch-max-size");
+        if (queries.size() > maxSize) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("At most " + maxSize + " queries per batch").build();
+        }
+
+        ModifiableGraphSearchParams params = ModifiableGraphSearchParams.create()
+                .timeout(timeout).maxRows(limit).queryId(queryId);
+        Batch batch = core.getQueryEngine(id).queryAll(queries, params);
+
+        StreamingOutput stream = output -> {
+            // Closing cancels the rest when the client is gone.
+            try (Batch answers = batch) {
+                for (int i = 0; answers.hasNext(); i++) {
+                    output.write(jsonMapper.writeValueAsBytes(batchEntry(queries.get(i), answers.next())));
+                    output.write('\n');
+                    output.flush();
+                }
+            }
+        };
+
+        return Response.status(Response.Status.OK).entity(stream).type(SPARQLResultsWriter.NDJSON).build();
+    }
+
+    private Object batchEntry(String query, Future<QueryResponse> future) {
+        try {
+            QueryResponse queryResponse = future.get();
+            UserResponse userResponse = buildUserResponse(queryResponse);
+            userResponse.setTruncated(queryResponse.isTruncated());
+            return userResponse;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StarGraphException("Interrupted", e);
+        }
+        catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            logger.error(marker, "Batch query failed: '{}'", query, cause);
+            Map<String, String> error = new LinkedHashMap<>();
+            error.put("query", query);
+            error.put("error", String.valueOf(cause.getMessage()));
+            return error;
+        }
+    }
+
+    @Override
+    public Response cancel(String id, String queryId) {
+        if (core.hasKB(id) && core.getGraphSearcher(id).cancel(queryId)) {
+            return Response.status(Response.Status.OK).build();
+        }
+        return Response.status(Response.Status.NOT_FOUND).build();
+    }
+
+    /**
+     * Triples are written as N-Triples while the CONSTRUCT query runs, the graph is never held in memory.
+     */
+    private StreamingOutput streamTriples(SPARQLGraphResponse graphResponse) {
+        return output -> {
+            StreamRDF writer = StreamRDFLib.writer(output);
+            writer.start();
+            graphResponse.forEach(writer::triple);
+            writer.finish();
+            if (graphResponse.isTruncated()) {
+                logger.warn(marker, "Truncated graph sent for '{}'", graphResponse.getUserQuery());
+            }
+        };
+    }
+
     public UserResponse buildUserResponse(QueryResponse queryResponse) {
 
         if (queryResponse instanceof NoResponse) {
@@ -113,6 +298,12 @@ public final class QueryResourceImpl implements QueryResource {
             return response;
         }
 
+        else if (queryResponse instanceof SPARQLAskResponse) {
+            SPARQLAskResponse askResponse = (SPARQLAskResponse) queryResponse;
+            return new SPARQLAskUserResponse(askResponse.getUserQuery(),
+                    askResponse.getInteractionMode(), askResponse.getAnswer());
+        }
+
         throw new UnsupportedOperationException("Can't create REST response");
     }
 }
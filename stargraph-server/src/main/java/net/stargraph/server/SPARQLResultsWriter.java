@@ -0,0 +1,183 @@
+package net.stargraph.server;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-server
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Writes SPARQL results as they are read, either as SPARQL 1.1 Query Results JSON or
+ * as NDJSON (one solution per line, same term encoding). Nothing is kept but the generator buffer,
+ * each NDJSON line is flushed on its own.
+ * <p>
+ * A stopped execution (timeout, row limit, cancellation) is signaled by a trailing "truncated" member,
+ * or a last {"truncated":true} line in NDJSON.
+ */
+public final class SPARQLResultsWriter {
+    public static final String JSON = "application/sparql-results+json";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final String XSD_STRING = XSDDatatype.XSDstring.getURI();
+
+    private OutputStream output;
+    private JsonGenerator generator;
+    private boolean ndjson;
+    private List<Var> vars;
+
+    public SPARQLResultsWriter(OutputStream output, boolean ndjson) {
+        this.output = Objects.requireNonNull(output);
+        this.ndjson = ndjson;
+        try {
+            this.generator = jsonFactory.createGenerator(output, JsonEncoding.UTF8);
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void start(List<String> vars) {
+        this.vars = vars.stream().map(Var::alloc).collect(Collectors.toList());
+        if (ndjson) {
+            return;
+        }
+        try {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("head");
+            generator.writeArrayFieldStart("vars");
+            for (String var : vars) {
+                generator.writeString(var);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("results");
+            generator.writeArrayFieldStart("bindings");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void row(Binding binding) {
+        try {
+            generator.writeStartObject();
+            for (Var var : vars) {
+                Node node = binding.get(var);
+                if (node != null) {
+                    generator.writeFieldName(var.getVarName());
+                    writeTerm(node);
+                }
+            }
+            generator.writeEndObject();
+            endLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish(boolean truncated) {
+        try {
+            if (!ndjson) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                if (truncated) {
+                    generator.writeBooleanField("truncated", true);
+                }
+                generator.writeEndObject();
+            } else if (truncated) {
+                generator.writeStartObject();
+                generator.writeBooleanField("truncated", true);
+                generator.writeEndObject();
+                endLine();
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void ask(boolean answer) {
+        try {
+            generator.writeStartObject();
+            if (!ndjson) {
+                generator.writeObjectFieldStart("head");
+                generator.writeEndObject();
+            }
+            generator.writeBooleanField("boolean", answer);
+            generator.writeEndObject();
+            endLine();
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeTerm(Node node) throws IOException {
+        generator.writeStartObject();
+        if (node.isURI()) {
+            generator.writeStringField("type", "uri");
+            generator.writeStringField("value", node.getURI());
+        } else if (node.isLiteral()) {
+            generator.writeStringField("type", "literal");
+            generator.writeStringField("value", node.getLiteralLexicalForm());
+            String lang = node.getLiteralLanguage();
+            String dataType = node.getLiteralDatatypeURI();
+            if (lang != null && !lang.isEmpty()) {
+                generator.writeStringField("xml:lang", lang);
+            } else if (dataType != null && !dataType.equals(XSD_STRING)) {
+                generator.writeStringField("datatype", dataType);
+            }
+        } else if (node.isBlank()) {
+            generator.writeStringField("type", "bnode");
+            generator.writeStringField("value", node.getBlankNodeLabel());
+        } else {
+            generator.writeStringField("type", "literal");
+            generator.writeStringField("value", node.toString());
+        }
+        generator.writeEndObject();
+    }
+
+    private void endLine() throws IOException {
+        if (ndjson) {
+            generator.flush();
+            output.write('\n');
+        }
+    }
+}
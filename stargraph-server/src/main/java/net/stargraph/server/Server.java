@@ -53,6 +53,7 @@ public final class Server {
     private static Marker marker = MarkerFactory.getMarker("server");
     private HttpServer httpServer;
     private Stargraph core;
+    private QueryExecutor queryExecutor;
 
     Server(Stargraph core) {
         Preconditions.checkNotNull(core);
@@ -63,14 +64,15 @@ public final class Server {
         try {
             Config config = core.getConfig();
             String urlStr = config.getString("networking.rest-url");
+            queryExecutor = new QueryExecutor(config.getConfig("networking.query-executor"));
             ResourceConfig rc = new ResourceConfig();
             rc.register(LoggingFilter.class);
             rc.register(JacksonFeature.class);
             rc.register(CatchAllExceptionMapper.class);
             rc.register(SerializationExceptionMapper.class);
-            rc.register(AdminResourceImpl.class);
+            rc.register(new AdminResourceImpl(core, queryExecutor));
             rc.register(new KBResourceImpl(core));
-            rc.register(new QueryResourceImpl(core));
+            rc.register(new QueryResourceImpl(core, queryExecutor));
             httpServer = GrizzlyHttpServerFactory.createHttpServer(URI.create(urlStr), rc, true);
             logger.info(marker, "Stargraph listening on {}", urlStr);
         } catch (Exception e) {
@@ -83,6 +85,9 @@ public final class Server {
             if (httpServer != null && httpServer.isStarted()) {
                 httpServer.shutdownNow();
             }
+            if (queryExecutor != null) {
+                queryExecutor.shutdown();
+            }
         } catch (Exception e) {
             logger.error(marker, "Error while terminating HTTP httpServer", e);
             e.printStackTrace(System.err);
@@ -94,6 +99,9 @@ public final class Server {
      */
     public static void main(String args[]) {
         final Stargraph core = new Stargraph();
+        if (core.getConfig().getBoolean("warm-up")) {
+            core.warmUp();
+        }
         final Server server = new Server(core);
         server.start();
 
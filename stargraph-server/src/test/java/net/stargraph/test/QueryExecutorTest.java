@@ -0,0 +1,113 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-server
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import net.stargraph.server.QueryExecutor;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public final class QueryExecutorTest {
+    private QueryExecutor executor;
+    private CountDownLatch running;
+    private CountDownLatch release;
+
+    @BeforeMethod
+    public void before() {
+        Config config = ConfigFactory.parseString("threads = 1, queue-size = 2, per-kb-limit = 2, retry-after = 3s");
+        executor = new QueryExecutor(config);
+        running = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterMethod
+    public void after() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void perKBLimitTest() throws Exception {
+        Assert.assertTrue(executor.submit("kb1", this::block));
+        Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(executor.submit("kb1", () -> {}));
+        // both permits of kb1 are taken though the queue has room
+        Assert.assertFalse(executor.submit("kb1", () -> {}));
+        Assert.assertTrue(executor.submit("kb2", () -> {}));
+
+        Map<String, Object> metrics = executor.getMetrics();
+        Assert.assertEquals(metrics.get("rejected"), 1L);
+        Assert.assertEquals(((Map) metrics.get("in-flight")).get("kb1"), 2);
+
+        release.countDown();
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 50 && !executor.submit("kb1", done::countDown); i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS), "permits not released");
+    }
+
+    @Test
+    public void fullQueueTest() throws Exception {
+        Assert.assertTrue(executor.submit("kb1", this::block));
+        Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(executor.submit("kb2", () -> {}));
+        Assert.assertTrue(executor.submit("kb3", () -> {}));
+        Assert.assertFalse(executor.submit("kb4", () -> {}));
+
+        // the refused query does not keep its permit
+        Map<String, Object> metrics = executor.getMetrics();
+        Assert.assertEquals(metrics.get("queue-depth"), 2);
+        Assert.assertEquals(((Map) metrics.get("in-flight")).get("kb4"), 0);
+    }
+
+    @Test
+    public void unavailableTest() {
+        Response response = executor.unavailable();
+        Assert.assertEquals(response.getStatus(), Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+        Assert.assertEquals(response.getHeaderString(HttpHeaders.RETRY_AFTER), "3");
+        Assert.assertEquals(executor.getRetryAfterSeconds(), 3);
+    }
+
+    private void block() {
+        running.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package net.stargraph.test;
+
+/*-
+ * ==========================License-Start=============================
+ * stargraph-server
+ * --------------------------------------------------------------------
+ * Copyright (C) 2017 Lambda^3
+ * --------------------------------------------------------------------
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ==========================License-End===============================
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.stargraph.server.SPARQLResultsWriter;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public final class SPARQLResultsWriterTest {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void jsonTest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(new SPARQLResultsWriter(out, false), false);
+
+        JsonNode json = mapper.readTree(out.toByteArray());
+        Assert.assertEquals(json.at("/head/vars").toString(), "[\"s\",\"o\"]");
+        JsonNode bindings = json.at("/results/bindings");
+        Assert.assertEquals(bindings.size(), 3);
+        Assert.assertEquals(bindings.get(0).at("/s/type").asText(), "uri");
+        Assert.assertEquals(bindings.get(0).at("/s/value").asText(), "http://example.org/s");
+        Assert.assertEquals(bindings.get(0).at("/o/datatype").asText(), XSDDatatype.XSDinteger.getURI());
+        Assert.assertEquals(bindings.get(1).at("/o/xml:lang").asText(), "pt");
+        Assert.assertTrue(bindings.get(2).at("/o/datatype").isMissingNode(), "Plain strings have no datatype");
+        Assert.assertTrue(bindings.get(2).at("/s").isMissingNode(), "Unbound variables are left out");
+        Assert.assertNull(json.get("truncated"));
+    }
+
+    @Test
+    public void truncatedJsonTest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(new SPARQLResultsWriter(out, false), true);
+        Assert.assertTrue(mapper.readTree(out.toByteArray()).get("truncated").asBoolean());
+    }
+
+    @Test
+    public void ndjsonTest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(new SPARQLResultsWriter(out, true), true);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assert.assertEquals(lines.length, 4);
+        Assert.assertEquals(mapper.readTree(lines[0]).at("/o/value").asText(), "42");
+        Assert.assertEquals(mapper.readTree(lines[3]).toString(), "{\"truncated\":true}");
+
+        out.reset();
+        write(new SPARQLResultsWriter(out, true), false);
+        Assert.assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n").length, 3);
+    }
+
+    @Test
+    public void askTest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SPARQLResultsWriter(out, false).ask(true);
+        JsonNode json = mapper.readTree(out.toByteArray());
+        Assert.assertTrue(json.get("boolean").asBoolean());
+        Assert.assertNotNull(json.get("head"));
+
+        out.reset();
+        new SPARQLResultsWriter(out, true).ask(false);
+        Assert.assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), "{\"boolean\":false}\n");
+    }
+
+    private static void write(SPARQLResultsWriter writer, boolean truncated) {
+        Var s = Var.alloc("s");
+        Var o = Var.alloc("o");
+
+        writer.start(Arrays.asList("s", "o"));
+
+        BindingMap first = BindingFactory.create();
+        first.add(s, NodeFactory.createURI("http://example.org/s"));
+        first.add(o, NodeFactory.createLiteral("42", XSDDatatype.XSDinteger));
+        writer.row(first);
+
+        BindingMap second = BindingFactory.create();
+        second.add(s, NodeFactory.createURI("http://example.org/t"));
+        second.add(o, NodeFactory.createLiteral("olá", "pt"));
+        writer.row(second);
+
+        writer.row(BindingFactory.binding(o, NodeFactory.createLiteral("plain")));
+
+        writer.finish(truncated);
+    }
+}